@@ -0,0 +1,99 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.BrandNode;
+import com.ecommerce.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory brand directory: every brand with its product count and category spread. Built from
+ * one $group over the {brand, category} index and then kept current from product write events,
+ * the same way as {@link CategoryIndex}.
+ *
+ * <p>Brands whose names reduce to the same slug ("Dr. Martens" and "Dr Martens") are told apart
+ * by a numeric suffix given when a brand is first seen: the first keeps the plain slug, the next
+ * gets "-2" and so on. A brand keeps its slug for the life of the process, even while it has no
+ * products, so a new colliding brand never renames an existing one. A fresh start assigns them in
+ * name order.
+ */
+@Slf4j
+@Component
+public class BrandIndex extends GroupCountIndex {
+    private volatile List<BrandNode> brands = Collections.emptyList();
+    private volatile Map<String, BrandNode> bySlug = Collections.emptyMap();
+    // Brand name to slug and back, guarded by "this" like the counts; entries are never removed
+    private final Map<String, String> slugByName = new HashMap<>();
+    private final Map<String, String> nameBySlug = new HashMap<>();
+
+    public BrandIndex(MongoTemplate mongoTemplate) {
+        super(mongoTemplate, "brand", "category");
+    }
+
+    public List<BrandNode> getBrands() {
+        return brands;
+    }
+
+    public List<String> getBrandNames() {
+        return brands.stream().map(BrandNode::getName).toList();
+    }
+
+    public Optional<BrandNode> findBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+
+    @Override
+    String group(Product product) {
+        return product.getBrand();
+    }
+
+    @Override
+    String subgroup(Product product) {
+        return product.getCategory();
+    }
+
+    @Override
+    void publish(Map<String, Long> brandCounts, Map<String, Map<String, Long>> categoryCounts) {
+        List<BrandNode> nodes = new ArrayList<>(brandCounts.size());
+        Map<String, BrandNode> slugs = new HashMap<>();
+        for (Map.Entry<String, Long> brand : brandCounts.entrySet()) {
+            List<BrandNode.CategoryCount> categories = new ArrayList<>();
+            subgroups(categoryCounts, brand.getKey()).forEach((name, count) ->
+                    categories.add(new BrandNode.CategoryCount(name, Slugs.of(name), count)));
+            categories.sort(Comparator.comparingLong(BrandNode.CategoryCount::getCount).reversed());
+
+            BrandNode node = new BrandNode(brand.getKey(), slugOf(brand.getKey()), brand.getValue(),
+                    Collections.unmodifiableList(categories));
+            nodes.add(node);
+            slugs.put(node.getSlug(), node);
+        }
+        brands = Collections.unmodifiableList(nodes);
+        bySlug = Collections.unmodifiableMap(slugs);
+    }
+
+    private String slugOf(String brand) {
+        String assigned = slugByName.get(brand);
+        if (assigned != null) {
+            return assigned;
+        }
+        String slug = Slugs.of(brand);
+        String unique = slug;
+        for (int n = 2; nameBySlug.containsKey(unique); n++) {
+            unique = slug + "-" + n;
+        }
+        if (!unique.equals(slug)) {
+            log.warn("Brand \"{}\" has the same slug as \"{}\"; serving it as \"{}\"", brand, nameBySlug.get(slug), unique);
+        }
+        slugByName.put(brand, unique);
+        nameBySlug.put(unique, brand);
+        return unique;
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.recommendation.RelatedProductsIndex;
+import com.ecommerce.search.ProductSearchIndex;
+import com.ecommerce.search.SuggestionIndex;
+import com.mongodb.client.MongoCursor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm restarts from a local copy of the catalog. The raw product documents are written to a
+ * snapshot file on a schedule and at shutdown; on the next boot the file is memory-mapped and the
+ * in-memory indexes (categories, brands, search, suggestions, listings, related products) are
+ * built from it instead of each streaming the collection from Mongo.
+ *
+ * <p>A restored catalog can be behind: the snapshot records the product count and newest
+ * updatedAt it was read at, and right after the restore those are compared with Mongo in the
+ * background. Any difference is announced as RELOADED, which sends every index back to Mongo. A
+ * snapshot that is older than max-age, of another format or fails its checksum is ignored and
+ * startup proceeds as if there were none.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshot {
+    private static final String COLLECTION = "products";
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryIndex categoryIndex;
+    private final BrandIndex brandIndex;
+    private final ProductSearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final RelatedProductsIndex relatedProducts;
+    private final ObjectProvider<ColumnarCatalog> columnarCatalog;
+
+    private final boolean enabled;
+    private final Path path;
+    private final long maxAgeMs;
+    private final long intervalMs;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshot(MongoTemplate mongoTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           CategoryIndex categoryIndex,
+                           BrandIndex brandIndex,
+                           ProductSearchIndex searchIndex,
+                           SuggestionIndex suggestionIndex,
+                           RelatedProductsIndex relatedProducts,
+                           ObjectProvider<ColumnarCatalog> columnarCatalog,
+                           @Value("${app.catalog.snapshot.enabled:true}") boolean enabled,
+                           @Value("${app.catalog.snapshot.path:data/catalog.snapshot}") String path,
+                           @Value("${app.catalog.snapshot.max-age-ms:86400000}") long maxAgeMs,
+                           @Value("${app.catalog.snapshot.interval-ms:900000}") long intervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.categoryIndex = categoryIndex;
+        this.brandIndex = brandIndex;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.relatedProducts = relatedProducts;
+        this.columnarCatalog = columnarCatalog;
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.maxAgeMs = maxAgeMs;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Runs ahead of the indexes' own startup loads, which skip any index this has already filled.
+     * From then on reconciliation with Mongo takes over: a restored index is only reloaded if the
+     * catalog changed since the snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        if (intervalMs > 0) {
+            worker.scheduleWithFixedDelay(this::writeQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        long started = System.nanoTime();
+        SnapshotFile snapshot;
+        try {
+            snapshot = SnapshotFile.open(path);
+        } catch (SnapshotFile.InvalidSnapshotException e) {
+            log.info("Not restoring the catalog snapshot: {}", e.getMessage());
+            return;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read the catalog snapshot at {}: {}", path, e.getMessage());
+            return;
+        }
+        long age = System.currentTimeMillis() - snapshot.header.writtenAt();
+        if (age > maxAgeMs) {
+            log.info("Not restoring the catalog snapshot: written {} minutes ago", TimeUnit.MILLISECONDS.toMinutes(age));
+            return;
+        }
+
+        try {
+            // Decoded once and handed to every index; the list is dropped once they have built
+            List<Product> products = new ArrayList<>((int) snapshot.header.productCount());
+            snapshot.products(mongoTemplate.getConverter()).forEach(products::add);
+            categoryIndex.rebuild(products);
+            brandIndex.rebuild(products);
+            searchIndex.rebuild(products);
+            suggestionIndex.rebuild(products);
+            columnarCatalog.ifAvailable(catalog -> catalog.rebuild(products));
+            relatedProducts.scheduleRebuild(products);
+        } catch (RuntimeException e) {
+            // Whatever was restored is replaced by the Mongo reload below
+            log.warn("Catalog snapshot restore failed part way, reloading from Mongo", e);
+            eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+            return;
+        }
+        log.info("Restored {} products from the catalog snapshot in {} ms", snapshot.header.productCount(),
+                (System.nanoTime() - started) / 1_000_000);
+
+        SnapshotFile.Header header = snapshot.header;
+        worker.execute(() -> reconcile(header));
+    }
+
+    /**
+     * Writes a fresh snapshot unless the one on disk already holds the current catalog and is not
+     * yet halfway to max-age.
+     */
+    public synchronized void write() throws IOException {
+        long count = mongoTemplate.estimatedCount(COLLECTION);
+        long maxUpdatedAt = maxUpdatedAt();
+        SnapshotFile.Header current = SnapshotFile.readHeader(path);
+        if (current != null && current.format() == SnapshotFile.FORMAT_VERSION
+                && current.sameCatalogAs(count, maxUpdatedAt)
+                && System.currentTimeMillis() - current.writtenAt() < maxAgeMs / 2) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        // Raw documents straight from the driver: nothing is decoded on the way to disk
+        try (MongoCursor<RawBsonDocument> documents = mongoTemplate.getCollection(COLLECTION)
+                .withDocumentClass(RawBsonDocument.class)
+                .find()
+                .batchSize(1000)
+                .iterator()) {
+            SnapshotFile.Header written = SnapshotFile.write(path, documents, maxUpdatedAt, System.currentTimeMillis());
+            log.info("Wrote catalog snapshot of {} products ({} KB) in {} ms", written.productCount(),
+                    written.payloadBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Mongo is still up when the context starts closing; the beans go away only afterwards
+    @EventListener(ContextClosedEvent.class)
+    public void writeOnShutdown() {
+        if (enabled) {
+            writeQuietly();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void reconcile(SnapshotFile.Header header) {
+        try {
+            long count = mongoTemplate.estimatedCount(COLLECTION);
+            long maxUpdatedAt = maxUpdatedAt();
+            if (header.sameCatalogAs(count, maxUpdatedAt)) {
+                log.info("Catalog snapshot matches Mongo");
+                return;
+            }
+            log.info("Catalog changed since the snapshot ({} -> {} products), reloading from Mongo", header.productCount(), count);
+            eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+        } catch (RuntimeException e) {
+            // Keep serving the snapshot; the next write event or restart catches up
+            log.warn("Could not reconcile the catalog snapshot with Mongo: {}", e.getMessage());
+        }
+    }
+
+    private long maxUpdatedAt() {
+        Query newest = new Query().with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(1);
+        newest.fields().include("updatedAt");
+        Product latest = mongoTemplate.findOne(newest, Product.class);
+        return latest != null ? latest.getUpdatedAt() : 0;
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write the catalog snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the catalog as a whole, used as the validator for list-style responses. The ETag is
+ * derived from the product count and the newest updatedAt, so every instance (and every restart)
+ * reports the same tag for the same data. Last-Modified additionally moves forward on deletes,
+ * which the newest updatedAt alone would not show.
+ *
+ * <p>Writes only mark the version stale; the count and newest updatedAt are read again by the
+ * first request that asks for the tag, so a burst of writes costs one recomputation, not one each.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogVersion {
+    private final MongoTemplate mongoTemplate;
+
+    // Until the first refresh the start time stands in, which can never match an older tag
+    private volatile State state = new State("\"s" + Long.toHexString(System.currentTimeMillis()) + "\"",
+            System.currentTimeMillis());
+    private volatile boolean stale;
+    // Latest delete or reload not yet folded into the state
+    private final AtomicLong changedAt = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        stale = false;
+        refresh(changedAt.getAndSet(0));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // Saves stamp updatedAt themselves; deletes and bulk reloads only show up in the count
+        if (event.getType() != ProductChangedEvent.Type.SAVED) {
+            changedAt.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        }
+        stale = true;
+    }
+
+    public String getETag() {
+        return current().etag;
+    }
+
+    public long getLastModified() {
+        return current().lastModified;
+    }
+
+    // Readers arriving during a recomputation wait for it rather than get the tag it replaces
+    private State current() {
+        if (stale) {
+            synchronized (this) {
+                if (stale) {
+                    refresh();
+                }
+            }
+        }
+        return state;
+    }
+
+    private void refresh(long changedAt) {
+        long count = mongoTemplate.estimatedCount(Product.class);
+
+        Query newest = new Query().with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(1);
+        newest.fields().include("updatedAt");
+        Product latest = mongoTemplate.findOne(newest, Product.class);
+        long maxUpdatedAt = latest != null ? latest.getUpdatedAt() : 0;
+
+        // Never moves backwards, so a client can't be told "not modified" about a change it missed
+        long lastModified = Math.max(state.lastModified, Math.max(maxUpdatedAt, changedAt));
+        state = new State("\"c" + count + "-" + Long.toHexString(maxUpdatedAt) + "\"", lastModified);
+    }
+
+    private record State(String etag, long lastModified) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.CategoryNode;
+import com.ecommerce.model.Product;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory category -> subcategory tree with real product counts. Built once from a single
+ * $group aggregation and then kept current from product write events, so the category endpoints
+ * never have to touch Mongo.
+ */
+@Component
+public class CategoryIndex extends GroupCountIndex {
+    private volatile List<CategoryNode> tree = Collections.emptyList();
+    private volatile long totalProducts;
+
+    public CategoryIndex(MongoTemplate mongoTemplate) {
+        super(mongoTemplate, "category", "subcategory");
+    }
+
+    public List<CategoryNode> getTree() {
+        return tree;
+    }
+
+    public long getTotalProducts() {
+        return totalProducts;
+    }
+
+    public Optional<CategoryNode> findBySlug(String slug) {
+        return tree.stream().filter(node -> node.getSlug().equals(slug)).findFirst();
+    }
+
+    public Map<String, List<String>> getSubcategoryNames() {
+        Map<String, List<String>> names = new LinkedHashMap<>();
+        for (CategoryNode node : tree) {
+            names.put(node.getName(), node.getSubcategories().stream()
+                    .map(CategoryNode.SubcategoryNode::getName)
+                    .toList());
+        }
+        return names;
+    }
+
+    @Override
+    String group(Product product) {
+        return product.getCategory();
+    }
+
+    @Override
+    String subgroup(Product product) {
+        return product.getSubcategory();
+    }
+
+    @Override
+    void publish(Map<String, Long> categoryCounts, Map<String, Map<String, Long>> subcategoryCounts) {
+        List<CategoryNode> nodes = new ArrayList<>(categoryCounts.size());
+        long total = 0;
+        for (Map.Entry<String, Long> category : categoryCounts.entrySet()) {
+            List<CategoryNode.SubcategoryNode> subcategories = new ArrayList<>();
+            subgroups(subcategoryCounts, category.getKey()).forEach((name, count) ->
+                    subcategories.add(new CategoryNode.SubcategoryNode(name, Slugs.of(name), count)));
+            nodes.add(new CategoryNode(category.getKey(), Slugs.of(category.getKey()), category.getValue(),
+                    Collections.unmodifiableList(subcategories)));
+            total += category.getValue();
+        }
+        tree = Collections.unmodifiableList(nodes);
+        totalProducts = total;
+    }
+}
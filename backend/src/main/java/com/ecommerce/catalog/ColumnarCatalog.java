@@ -0,0 +1,422 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Whole-catalog column store for listing queries, enabled with {@code app.catalog.engine=columnar}.
+ * Numbers live in primitive arrays, category/subcategory/brand are dictionary-encoded ints and the
+ * flags are bitsets. Every sortable field has a precomputed row permutation, so a query is a walk
+ * over that permutation testing the filter per row: the match count is taken in parallel per chunk,
+ * and the page is then collected from the chunk it starts in. Nothing is allocated per row.
+ *
+ * Mongo stays the source of truth. Writes mark the snapshot stale and schedule a debounced reload;
+ * while stale every method returns empty and callers go to Mongo, so results are never older than
+ * the last write.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.catalog.engine", havingValue = "columnar")
+public class ColumnarCatalog {
+
+    // Rows per unit of parallel counting; a catalog smaller than one chunk is counted on the caller's thread
+    private static final int CHUNK_SIZE = 16_384;
+
+    private static final String[] FIELDS = {
+            "name", "slug", "brand", "category", "subcategory", "price", "discountPrice", "rating",
+            "reviewCount", "stock", "isNew", "isOnSale", "isFeatured", "createdAt"
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final long debounceMillis;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "columnar-catalog-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingReload;
+
+    public ColumnarCatalog(MongoTemplate mongoTemplate, @Value("${app.catalog.reload-debounce-ms:500}") long debounceMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.debounceMillis = debounceMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (snapshot == null) {
+            reload();
+        }
+    }
+
+    public void reload() {
+        Query query = new Query();
+        query.fields().include(FIELDS).slice("images", 1);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            rebuild(products::iterator);
+        }
+    }
+
+    public void rebuild(Iterable<Product> products) {
+        long loading = generation.get();
+        List<Product> rows = new ArrayList<>();
+        products.forEach(rows::add);
+        Snapshot loaded = new Snapshot(rows);
+
+        synchronized (this) {
+            snapshot = loaded;
+            // A write during the load is not in this snapshot; stay stale until the next reload
+            stale = generation.get() != loading;
+        }
+        log.info("Columnar catalog loaded {} products", loaded.size);
+    }
+
+    @EventListener
+    @Order(ProductChangedEvent.INDEX_ORDER)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        stale = true;
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = reloader.schedule(this::reloadQuietly, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdownNow();
+    }
+
+    public Optional<Page<ProductCard>> findCards(ProductFilter filter, PageRequest pageRequest) {
+        Snapshot current = usable();
+        if (current == null) {
+            return Optional.empty();
+        }
+        return current.find(filter, pageRequest).map(hits -> {
+            List<ProductCard> content = new ArrayList<>(hits.rows.length);
+            for (int row : hits.rows) {
+                content.add(current.cards[row]);
+            }
+            return new PageImpl<>(content, pageRequest, hits.total);
+        });
+    }
+
+    public Optional<Page<String>> findIds(ProductFilter filter, PageRequest pageRequest) {
+        Snapshot current = usable();
+        if (current == null) {
+            return Optional.empty();
+        }
+        return current.find(filter, pageRequest).map(hits -> {
+            List<String> content = new ArrayList<>(hits.rows.length);
+            for (int row : hits.rows) {
+                content.add(current.ids[row]);
+            }
+            return new PageImpl<>(content, pageRequest, hits.total);
+        });
+    }
+
+    private Snapshot usable() {
+        return stale ? null : snapshot;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Columnar catalog reload failed, listings stay on Mongo until the next write", e);
+        }
+    }
+
+    private record Hits(int[] rows, long total) {
+    }
+
+    /**
+     * Immutable column set. Rows are ordered by _id; every permutation breaks ties on _id so
+     * results page the same way Mongo's (field, _id) order does.
+     */
+    private static final class Snapshot {
+        final int size;
+        final String[] ids;
+        final ProductCard[] cards;
+
+        final double[] price;
+        final double[] rating;
+        final int[] stock;
+        final int[] category;
+        final int[] subcategory;
+        final int[] brand;
+        final BitSet onSale;
+        final BitSet newArrival;
+        final BitSet featured;
+
+        final Map<String, Integer> categoryCodes;
+        final Map<String, Integer> subcategoryCodes;
+        final Map<String, Integer> brandCodes;
+
+        // Sort field -> rows in ascending order of that field
+        final Map<String, int[]> orders;
+
+        private Snapshot(List<Product> rows) {
+            rows.sort(Comparator.comparing(Product::getId));
+            size = rows.size();
+            ids = new String[size];
+            cards = new ProductCard[size];
+            price = new double[size];
+            rating = new double[size];
+            stock = new int[size];
+            category = new int[size];
+            subcategory = new int[size];
+            brand = new int[size];
+            onSale = new BitSet(size);
+            newArrival = new BitSet(size);
+            featured = new BitSet(size);
+            categoryCodes = new HashMap<>();
+            subcategoryCodes = new HashMap<>();
+            brandCodes = new HashMap<>();
+
+            double[] discountPrice = new double[size];
+            int[] reviewCount = new int[size];
+            long[] createdAt = new long[size];
+            String[] name = new String[size];
+
+            for (int row = 0; row < size; row++) {
+                Product product = rows.get(row);
+                ids[row] = product.getId();
+                name[row] = product.getName();
+                price[row] = product.getPrice();
+                discountPrice[row] = product.getDiscountPrice();
+                rating[row] = product.getRating();
+                reviewCount[row] = product.getReviewCount();
+                stock[row] = product.getStock();
+                createdAt[row] = product.getCreatedAt();
+                category[row] = encode(categoryCodes, product.getCategory());
+                subcategory[row] = encode(subcategoryCodes, product.getSubcategory());
+                brand[row] = encode(brandCodes, product.getBrand());
+                onSale.set(row, product.isOnSale());
+                newArrival.set(row, product.isNew());
+                featured.set(row, product.isFeatured());
+                cards[row] = ProductCard.of(product);
+            }
+
+            orders = new HashMap<>();
+            int[] byId = IntStream.range(0, size).toArray();
+            orders.put("_id", byId);
+            orders.put("id", byId);
+            // Mongo sorts missing values first, so null names come first here too
+            Comparator<String> names = Comparator.nullsFirst(Comparator.naturalOrder());
+            orders.put("name", order((a, b) -> names.compare(name[a], name[b])));
+            orders.put("price", order((a, b) -> Double.compare(price[a], price[b])));
+            orders.put("discountPrice", order((a, b) -> Double.compare(discountPrice[a], discountPrice[b])));
+            orders.put("rating", order((a, b) -> Double.compare(rating[a], rating[b])));
+            orders.put("reviewCount", order((a, b) -> Integer.compare(reviewCount[a], reviewCount[b])));
+            orders.put("stock", order((a, b) -> Integer.compare(stock[a], stock[b])));
+            orders.put("createdAt", order((a, b) -> Long.compare(createdAt[a], createdAt[b])));
+        }
+
+        // Empty when the query uses something the columns can't answer (search, multi-field sort)
+        Optional<Hits> find(ProductFilter filter, PageRequest pageRequest) {
+            if (filter.getSearch() != null) {
+                return Optional.empty();
+            }
+
+            int[] order;
+            boolean descending = false;
+            Sort sort = pageRequest.getSort();
+            if (sort.isUnsorted()) {
+                order = orders.get("_id");
+            } else {
+                List<Sort.Order> sortOrders = sort.toList();
+                if (sortOrders.size() != 1 || sortOrders.get(0).isIgnoreCase()) {
+                    return Optional.empty();
+                }
+                order = orders.get(sortOrders.get(0).getProperty());
+                if (order == null) {
+                    return Optional.empty();
+                }
+                descending = sortOrders.get(0).isDescending();
+            }
+
+            Matcher matcher = matcher(filter);
+            if (matcher == null) {
+                return Optional.of(new Hits(new int[0], 0));
+            }
+
+            // Match count per chunk of the sort order, in parallel for large catalogs
+            int chunks = Math.max(1, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            int[] counts = new int[chunks];
+            final int[] walk = order;
+            final boolean reverse = descending;
+            IntStream chunkRange = IntStream.range(0, chunks);
+            (chunks > 1 ? chunkRange.parallel() : chunkRange).forEach(chunk -> {
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(from + CHUNK_SIZE, size);
+                int count = 0;
+                for (int position = from; position < to; position++) {
+                    if (matcher.matches(walk[reverse ? size - 1 - position : position])) {
+                        count++;
+                    }
+                }
+                counts[chunk] = count;
+            });
+
+            long total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+
+            long offset = pageRequest.getOffset();
+            if (offset >= total) {
+                return Optional.of(new Hits(new int[0], total));
+            }
+
+            // Jump straight to the chunk the page starts in, then skip the remaining matches in it
+            int chunk = 0;
+            long skip = offset;
+            while (skip >= counts[chunk]) {
+                skip -= counts[chunk];
+                chunk++;
+            }
+
+            int[] rows = new int[(int) Math.min(pageRequest.getPageSize(), total - offset)];
+            int filled = 0;
+            for (int position = chunk * CHUNK_SIZE; position < size && filled < rows.length; position++) {
+                int row = walk[reverse ? size - 1 - position : position];
+                if (matcher.matches(row)) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        rows[filled++] = row;
+                    }
+                }
+            }
+            return Optional.of(new Hits(rows, total));
+        }
+
+        // Null when a dictionary value doesn't exist, i.e. nothing can match
+        private Matcher matcher(ProductFilter filter) {
+            int categoryCode = code(categoryCodes, filter.getCategory());
+            int subcategoryCode = code(subcategoryCodes, filter.getSubcategory());
+            int brandCode = code(brandCodes, filter.getBrand());
+            if (categoryCode == MISSING || subcategoryCode == MISSING || brandCode == MISSING) {
+                return null;
+            }
+            return new Matcher(this, categoryCode, subcategoryCode, brandCode,
+                    filter.getMinPrice() != null ? filter.getMinPrice() : Double.NEGATIVE_INFINITY,
+                    filter.getMaxPrice() != null ? filter.getMaxPrice() : Double.POSITIVE_INFINITY,
+                    filter.getMinRating() != null ? filter.getMinRating() : Double.NEGATIVE_INFINITY,
+                    filter.getInStock(), filter.getOnSale(), filter.getNewArrival(), filter.getFeatured());
+        }
+
+        private int[] order(IntComparator comparator) {
+            Integer[] boxed = new Integer[size];
+            for (int row = 0; row < size; row++) {
+                boxed[row] = row;
+            }
+            // Rows are already in _id order and the sort is stable, so ties stay ordered by _id
+            Arrays.sort(boxed, comparator::compare);
+            return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+        }
+
+        private static final int ANY = -1;
+        private static final int MISSING = -2;
+        private static final int NULL_CODE = -3;
+
+        private static int encode(Map<String, Integer> codes, String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            return codes.computeIfAbsent(value, key -> codes.size());
+        }
+
+        private static int code(Map<String, Integer> codes, String value) {
+            if (value == null) {
+                return ANY;
+            }
+            return codes.getOrDefault(value, MISSING);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    // Filter resolved against one snapshot: dictionary values are ints, absent bounds are infinities
+    private static final class Matcher {
+        private final Snapshot columns;
+        private final int category;
+        private final int subcategory;
+        private final int brand;
+        private final double minPrice;
+        private final double maxPrice;
+        private final double minRating;
+        private final Boolean inStock;
+        private final Boolean onSale;
+        private final Boolean newArrival;
+        private final Boolean featured;
+
+        Matcher(Snapshot columns, int category, int subcategory, int brand, double minPrice, double maxPrice,
+                double minRating, Boolean inStock, Boolean onSale, Boolean newArrival, Boolean featured) {
+            this.columns = columns;
+            this.category = category;
+            this.subcategory = subcategory;
+            this.brand = brand;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.minRating = minRating;
+            this.inStock = inStock;
+            this.onSale = onSale;
+            this.newArrival = newArrival;
+            this.featured = featured;
+        }
+
+        boolean matches(int row) {
+            Snapshot c = columns;
+            return (category == Snapshot.ANY || c.category[row] == category)
+                    && (subcategory == Snapshot.ANY || c.subcategory[row] == subcategory)
+                    && (brand == Snapshot.ANY || c.brand[row] == brand)
+                    && c.price[row] >= minPrice && c.price[row] <= maxPrice
+                    && c.rating[row] >= minRating
+                    && (inStock == null || (c.stock[row] > 0) == inStock)
+                    && (onSale == null || c.onSale.get(row) == onSale)
+                    && (newArrival == null || c.newArrival.get(row) == newArrival)
+                    && (featured == null || c.featured.get(row) == featured);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Product counts per group and per subgroup within it (category and subcategory, brand and
+ * category). Built from one $group aggregation over the two fields and then kept current from
+ * product write events; subclasses turn the counts into the immutable view they serve.
+ */
+abstract class GroupCountIndex {
+    private final MongoTemplate mongoTemplate;
+    private final String groupField;
+    private final String subgroupField;
+
+    // Mutable counts, guarded by "this"; readers only ever see what publish() builds from them
+    private final Map<String, Long> groupCounts = new TreeMap<>();
+    private final Map<String, Map<String, Long>> subgroupCounts = new TreeMap<>();
+    private boolean loaded;
+
+    GroupCountIndex(MongoTemplate mongoTemplate, String groupField, String subgroupField) {
+        this.mongoTemplate = mongoTemplate;
+        this.groupField = groupField;
+        this.subgroupField = subgroupField;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group(groupField, subgroupField).count().as("count")
+        );
+
+        groupCounts.clear();
+        subgroupCounts.clear();
+        for (Document row : mongoTemplate.aggregate(aggregation, "products", Document.class)) {
+            Document key = row.get("_id", Document.class);
+            long count = ((Number) row.get("count")).longValue();
+            adjust(key.getString(groupField), key.getString(subgroupField), count);
+        }
+        loaded = true;
+        publish(groupCounts, subgroupCounts);
+    }
+
+    public synchronized void rebuild(Iterable<Product> products) {
+        groupCounts.clear();
+        subgroupCounts.clear();
+        for (Product product : products) {
+            adjust(group(product), subgroup(product), 1);
+        }
+        loaded = true;
+        publish(groupCounts, subgroupCounts);
+    }
+
+    @EventListener
+    @Order(ProductChangedEvent.INDEX_ORDER)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!loaded) {
+            // The initial build runs once the application is ready and will see this write
+            return;
+        }
+
+        switch (event.getType()) {
+            case RELOADED -> rebuild();
+            case SAVED -> {
+                Product previous = event.getPrevious();
+                Product current = event.getProduct();
+                if (previous != null) {
+                    adjust(group(previous), subgroup(previous), -1);
+                }
+                adjust(group(current), subgroup(current), 1);
+                publish(groupCounts, subgroupCounts);
+            }
+            case DELETED -> {
+                Product previous = event.getPrevious();
+                if (previous != null) {
+                    adjust(group(previous), subgroup(previous), -1);
+                    publish(groupCounts, subgroupCounts);
+                }
+            }
+        }
+    }
+
+    abstract String group(Product product);
+
+    abstract String subgroup(Product product);
+
+    /**
+     * Rebuilds the served view after every change, under the lock. Both maps iterate in name
+     * order and must not be kept; subgroups of a group without any are absent.
+     */
+    abstract void publish(Map<String, Long> groupCounts, Map<String, Map<String, Long>> subgroupCounts);
+
+    static Map<String, Long> subgroups(Map<String, Map<String, Long>> subgroupCounts, String group) {
+        return subgroupCounts.getOrDefault(group, Collections.emptyMap());
+    }
+
+    private void adjust(String group, String subgroup, long delta) {
+        if (group == null || group.isBlank()) {
+            return;
+        }
+        groupCounts.merge(group, delta, Long::sum);
+        if (groupCounts.get(group) <= 0) {
+            groupCounts.remove(group);
+        }
+
+        if (subgroup != null) {
+            Map<String, Long> subgroups = subgroupCounts.computeIfAbsent(group, k -> new TreeMap<>());
+            subgroups.merge(subgroup, delta, Long::sum);
+            if (subgroups.get(subgroup) <= 0) {
+                subgroups.remove(subgroup);
+            }
+            if (subgroups.isEmpty()) {
+                subgroupCounts.remove(group);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.catalog;
+
+import java.util.Locale;
+
+public final class Slugs {
+
+    private Slugs() {
+    }
+
+    // "Home & Garden" -> "home-garden", "T-shirts" -> "t-shirts"
+    public static String of(String value) {
+        if (value == null) {
+            return "";
+        }
+        String slug = value.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+        return slug.replaceAll("^-+|-+$", "");
+    }
+}
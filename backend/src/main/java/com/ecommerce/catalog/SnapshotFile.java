@@ -0,0 +1,217 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.model.Product;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk layout of the catalog snapshot: a fixed header followed by the product documents as
+ * raw BSON, back to back, exactly as Mongo returned them. BSON documents carry their own length,
+ * so the payload needs no framing and a mapped file can be walked without copying it first. The
+ * payload is mapped as a single buffer, so it is limited to {@link #MAX_PAYLOAD_BYTES}.
+ *
+ * <pre>
+ *  0  int   magic "ECS1"
+ *  4  int   format version
+ *  8  long  written at (epoch ms)
+ * 16  long  product count      \ the catalog version the documents were read at,
+ * 24  long  newest updatedAt   / compared with Mongo after a restore
+ * 32  long  payload length
+ * 40  long  CRC-32 of the payload
+ * 48  ...   payload
+ * </pre>
+ */
+final class SnapshotFile {
+    static final int MAGIC = 0x45435331;
+    // Bump whenever stored product documents change shape in a way older snapshots would misread
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 48;
+    // Largest payload one MappedByteBuffer can address
+    static final long MAX_PAYLOAD_BYTES = Integer.MAX_VALUE - HEADER_BYTES;
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    final Header header;
+    private final ByteBuffer payload;
+
+    private SnapshotFile(Header header, ByteBuffer payload) {
+        this.header = header;
+        this.payload = payload;
+    }
+
+    record Header(int format, long writtenAt, long productCount, long maxUpdatedAt, long payloadBytes, long checksum) {
+        boolean sameCatalogAs(long count, long updatedAt) {
+            return productCount == count && maxUpdatedAt == updatedAt;
+        }
+    }
+
+    /**
+     * Writes the documents to a temporary file next to the target and moves it into place, so a
+     * reader never sees a half-written snapshot.
+     *
+     * @param maxUpdatedAt the newest updatedAt, read before the documents: a write that lands while
+     *                     they stream makes the snapshot look older than it is, never newer
+     */
+    static Header write(Path path, Iterator<RawBsonDocument> documents, long maxUpdatedAt, long now) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Header header;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.position(HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                long written = 0;
+                long count = 0;
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                byte[] chunk = new byte[8192];
+                while (documents.hasNext()) {
+                    ByteBuffer bytes = documents.next().getByteBuffer().asNIO();
+                    while (bytes.hasRemaining()) {
+                        int length = Math.min(chunk.length, bytes.remaining());
+                        bytes.get(chunk, 0, length);
+                        out.write(chunk, 0, length);
+                        crc.update(chunk, 0, length);
+                        written += length;
+                    }
+                    if (written > MAX_PAYLOAD_BYTES) {
+                        throw new IOException("catalog exceeds the " + MAX_PAYLOAD_BYTES + " bytes a snapshot can hold");
+                    }
+                    count++;
+                }
+                out.flush();
+
+                header = new Header(FORMAT_VERSION, now, count, maxUpdatedAt, written, crc.getValue());
+                ByteBuffer encoded = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .putInt(header.format())
+                        .putLong(header.writtenAt())
+                        .putLong(header.productCount())
+                        .putLong(header.maxUpdatedAt())
+                        .putLong(header.payloadBytes())
+                        .putLong(header.checksum())
+                        .flip();
+                while (encoded.hasRemaining()) {
+                    channel.write(encoded, encoded.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return header;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Just the header, for deciding whether a rewrite is needed; null when absent or unreadable
+    static Header readHeader(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            return buffer.hasRemaining() ? null : decode(buffer.flip());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maps the snapshot read-only and checks it. The mapping outlives the channel and is released
+     * once the returned file is no longer referenced.
+     *
+     * @throws InvalidSnapshotException when the file is truncated, corrupt or of another format
+     */
+    static SnapshotFile open(Path path) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new InvalidSnapshotException("truncated header");
+            }
+            if (size - HEADER_BYTES > MAX_PAYLOAD_BYTES) {
+                throw new InvalidSnapshotException("payload of " + (size - HEADER_BYTES) + " bytes is larger than the "
+                        + MAX_PAYLOAD_BYTES + " a snapshot can map");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            throw new InvalidSnapshotException("no snapshot at " + path);
+        }
+
+        Header header = decode(mapped.duplicate());
+        if (header == null) {
+            throw new InvalidSnapshotException("not a catalog snapshot");
+        }
+        if (header.format() != FORMAT_VERSION) {
+            throw new InvalidSnapshotException("format " + header.format() + ", expected " + FORMAT_VERSION);
+        }
+        if (header.payloadBytes() != mapped.capacity() - HEADER_BYTES) {
+            throw new InvalidSnapshotException("payload is " + (mapped.capacity() - HEADER_BYTES) + " bytes, header says " + header.payloadBytes());
+        }
+        ByteBuffer payload = mapped.slice(HEADER_BYTES, (int) header.payloadBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != header.checksum()) {
+            throw new InvalidSnapshotException("checksum mismatch");
+        }
+        return new SnapshotFile(header, payload);
+    }
+
+    // The products, each decoded straight from its slice of the mapping; every iteration starts over
+
+    Iterable<Product> products(MongoConverter converter) {
+        return () -> new Iterator<>() {
+            private final ByteBuffer remaining = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+            @Override
+            public boolean hasNext() {
+                return remaining.hasRemaining();
+            }
+
+            @Override
+            public Product next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int start = remaining.position();
+                int length = remaining.getInt(start);
+                ByteBuffer bytes = remaining.slice(start, length).order(ByteOrder.LITTLE_ENDIAN);
+                remaining.position(start + length);
+                try (BsonBinaryReader reader = new BsonBinaryReader(bytes)) {
+                    return converter.read(Product.class, CODEC.decode(reader, DecoderContext.builder().build()));
+                }
+            }
+        };
+    }
+
+    private static Header decode(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+        return new Header(buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    static class InvalidSnapshotException extends IOException {
+        InvalidSnapshotException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_PAGES = "productPages";
+    public static final String PRODUCT_FACETS = "productFacets";
+
+    @Value("${app.cache.products.spec:maximumSize=10000,expireAfterWrite=10m}")
+    private String productsSpec;
+
+    @Value("${app.cache.product-pages.spec:maximumSize=1000,expireAfterWrite=5m}")
+    private String productPagesSpec;
+
+    @Value("${app.cache.product-facets.spec:maximumSize=500,expireAfterWrite=10m}")
+    private String productFacetsSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // recordStats() feeds the cache.gets / cache.evictions meters exposed through actuator
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.from(productsSpec).recordStats().build());
+        cacheManager.registerCustomCache(PRODUCT_PAGES, Caffeine.from(productPagesSpec).recordStats().build());
+        // Size-bounded W-TinyLFU keeps the popular filter combinations resident
+        cacheManager.registerCustomCache(PRODUCT_FACETS, Caffeine.from(productFacetsSpec).recordStats().build());
+        return cacheManager;
+    }
+}
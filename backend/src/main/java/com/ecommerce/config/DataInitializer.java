@@ -1,134 +1,176 @@
 package com.ecommerce.config;
 
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.importer.CatalogImporter;
+import com.ecommerce.importer.ImportResult;
+import com.ecommerce.importer.ProductJsonReader;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
+    private static final String COLLECTION = "products";
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CatalogImporter catalogImporter;
+
     @Override
     public void run(String... args) throws Exception {
         System.out.println("DataInitializer is running...");
         System.out.println("Current product count: " + productRepository.count());
-        
-        if (productRepository.count() == 0) {
-            System.out.println("Database is empty, seeding products...");
-            seedProducts();
+
+        // Diff against what is stored instead of delete-all-and-reseed: no empty-catalog window,
+        // stock and rating survive restarts, and an unchanged seed costs one projected read per batch.
+        // The seed is streamed through the importer, so only the ids seen are held for the whole run
+        SeedRun seedRun = new SeedRun();
+        ImportResult result = null;
+        File jsonFile = findSeedFile();
+        if (jsonFile != null) {
+            System.out.println("Loading products from: " + jsonFile.getAbsolutePath());
+            result = importSeedFile(jsonFile, seedRun);
+        }
+        if (result == null) {
+            System.err.println("No readable ecommerce.products.json, falling back to hardcoded classes");
+            result = catalogImporter.importProducts(fallbackProducts().iterator(), seedRun::apply);
+        }
+
+        result.getErrors().forEach(error -> System.err.println("Seed record skipped: " + error));
+        int deleted = 0;
+        if (result.getRejected() == 0 && result.getFailed() == 0) {
+            deleted = deleteStale(seedRun.seedIds);
         } else {
-            System.out.println("Database already has products, clearing and reseeding with new image URLs...");
-            productRepository.deleteAll();
-            seedProducts();
+            // A skipped record would look like a product that left the seed
+            System.err.println("Seed had rejected or failed records, not deleting products missing from it");
+        }
+
+        if (seedRun.inserted.sum() + seedRun.updated.sum() + deleted == 0) {
+            System.out.println("Catalog matches the seed data (" + result.getAccepted() + " products), nothing to write");
+            return;
+        }
+        System.out.println("Seed applied: " + seedRun.inserted.sum() + " inserted, " + seedRun.updated.sum()
+                + " updated, " + deleted + " deleted");
+
+        // Print category counts
+        System.out.println("\nCategory Counts:");
+        for (String category : List.of("Electronics", "Fashion", "Home & Garden", "Sports")) {
+            LongAdder count = seedRun.categoryCounts.get(category);
+            System.out.println(category + ": " + (count == null ? 0 : count.sum()));
+        }
+    }
+
+    // Null when the file cannot be opened or is not a product array; JSON that breaks off midway fails the run
+    private ImportResult importSeedFile(File jsonFile, SeedRun seedRun) {
+        try (ProductJsonReader reader = new ProductJsonReader(
+                new BufferedInputStream(new FileInputStream(jsonFile), 64 * 1024), mongoTemplate.getConverter())) {
+            return catalogImporter.importProducts(reader, seedRun::apply);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + jsonFile + ": " + e.getMessage());
+            return null;
         }
     }
 
-    private void seedProducts() {
+    private List<Product> fallbackProducts() {
         List<Product> allProducts = new ArrayList<>();
-        
-        try {
-            // Read products from JSON file with GitHub URLs
-            System.out.println("Loading products from JSON file with GitHub image URLs...");
-            allProducts = loadProductsFromJson();
-            System.out.println("Loaded " + allProducts.size() + " products from JSON");
-        } catch (Exception e) {
-            System.err.println("Failed to load products from JSON, falling back to hardcoded classes: " + e.getMessage());
-            
-            // Fallback to hardcoded classes if JSON loading fails
-            List<Product> electronicsProducts = ElectronicsProducts.getProducts();
-            allProducts.addAll(electronicsProducts);
-            System.out.println("Added " + electronicsProducts.size() + " electronics products");
-            
-            List<Product> fashionProducts = FashionProducts.getProducts();
-            allProducts.addAll(fashionProducts);
-            System.out.println("Added " + fashionProducts.size() + " fashion products");
-            
-            List<Product> fashionExtraProducts = FashionProductsExtra.getProducts();
-            allProducts.addAll(fashionExtraProducts);
-            System.out.println("Added " + fashionExtraProducts.size() + " extra fashion products");
-            
-            List<Product> homeProducts = HomeAndGardenProducts.getProducts();
-            allProducts.addAll(homeProducts);
-            System.out.println("Added " + homeProducts.size() + " home & garden products");
-            
-            List<Product> sportsProducts = SportsProducts.getProducts();
-            allProducts.addAll(sportsProducts);
-            System.out.println("Added " + sportsProducts.size() + " sports products");
+
+        List<Product> electronicsProducts = ElectronicsProducts.getProducts();
+        allProducts.addAll(electronicsProducts);
+        System.out.println("Added " + electronicsProducts.size() + " electronics products");
+
+        List<Product> fashionProducts = FashionProducts.getProducts();
+        allProducts.addAll(fashionProducts);
+        System.out.println("Added " + fashionProducts.size() + " fashion products");
+
+        List<Product> fashionExtraProducts = FashionProductsExtra.getProducts();
+        allProducts.addAll(fashionExtraProducts);
+        System.out.println("Added " + fashionExtraProducts.size() + " extra fashion products");
+
+        List<Product> homeProducts = HomeAndGardenProducts.getProducts();
+        allProducts.addAll(homeProducts);
+        System.out.println("Added " + homeProducts.size() + " home & garden products");
+
+        List<Product> sportsProducts = SportsProducts.getProducts();
+        allProducts.addAll(sportsProducts);
+        System.out.println("Added " + sportsProducts.size() + " sports products");
+        return allProducts;
+    }
+
+    // Only what the diff needs: the hash last written and the fields isNew is derived from
+    private Map<String, Product> loadStoredSeedState(List<Product> batch) {
+        Query query = Query.query(Criteria.where("_id").in(batch.stream().map(Product::getId).toList()));
+        query.fields().include("seedHash", "createdAt", "isNew");
+        Map<String, Product> stored = new HashMap<>();
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            stored.put(product.getId(), product);
         }
-        
-        // Note: Image URLs are now stored as full GitHub URLs in the product data
-        // No need to modify image paths - they come from JSON with complete GitHub URLs
-        System.out.println("Using GitHub-hosted image URLs (no path modification needed)...");
-
-        // Set featured, new, and sale flags
-        Random random = new Random();
-        long now = System.currentTimeMillis();
-        
-        for (Product product : allProducts) {
-            // Set 20% of products as featured
-            product.setFeatured(random.nextDouble() < 0.2);
-            
-            // Set products added in the last 30 days as new
-            product.setNew(now - product.getCreatedAt() < 30 * 24 * 60 * 60 * 1000);
-            
-            // Set random discount for 30% of products (30-70% off)
-            if (random.nextDouble() < 0.3) {
-                double discountPercentage = 30 + random.nextDouble() * 40; // 30-70% discount
-                double discountAmount = product.getPrice() * (discountPercentage / 100.0);
-                product.setDiscountPrice(product.getPrice() - discountAmount);
-                product.setOnSale(true);
-            } else {
-                product.setDiscountPrice(0.0);
-                product.setOnSale(false);
-            }
-            
-            // Set timestamps if not already set
-            if (product.getCreatedAt() == 0) {
-                product.setCreatedAt(now - random.nextInt(60) * 24 * 60 * 60 * 1000L); // Random date in last 60 days
-            }
-            if (product.getUpdatedAt() == 0) {
-                product.setUpdatedAt(product.getCreatedAt());
-            }
-            
-            // Set slug if not already set
-            if (product.getSlug() == null || product.getSlug().isEmpty()) {
-                product.setSlug(product.getId().toLowerCase());
+        return stored;
+    }
+
+    // Unordered bulk writes on raw documents: one round trip per batch, and no per-document
+    // mapping events; the importer tells the caches and indexes once through RELOADED
+    private void apply(SeedPlan plan, long now) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        plan.inserts.forEach(bulk::insert);
+        plan.updates.forEach((id, changes) -> {
+            Document update = new Document("$set", new Document(changes).append("updatedAt", now));
+            List<String> removed = plan.unsets.get(id);
+            if (removed != null) {
+                Document unset = new Document();
+                removed.forEach(field -> unset.append(field, ""));
+                update.append("$unset", unset);
             }
-        }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id)), Update.fromDocument(update));
+        });
+        bulk.execute();
+    }
 
-        // Save all products to database
-        productRepository.saveAll(allProducts);
-        System.out.println("Successfully seeded " + allProducts.size() + " total products!");
-        
-        // Print category counts
-        long electronicsCount = allProducts.stream().filter(p -> p.getCategory().equals("Electronics")).count();
-        long fashionCount = allProducts.stream().filter(p -> p.getCategory().equals("Fashion")).count();
-        long homeCount = allProducts.stream().filter(p -> p.getCategory().equals("Home & Garden")).count();
-        long sportsCount = allProducts.stream().filter(p -> p.getCategory().equals("Sports")).count();
-        
-        System.out.println("\nCategory Counts:");
-        System.out.println("Electronics: " + electronicsCount);
-        System.out.println("Fashion: " + fashionCount);
-        System.out.println("Home & Garden: " + homeCount);
-        System.out.println("Sports: " + sportsCount);
+    private int deleteStale(Set<String> seedIds) {
+        Query query = Query.query(Criteria.where("seedHash").exists(true));
+        query.fields().include("seedHash");
+        List<String> stale;
+        try (Stream<Product> stored = mongoTemplate.stream(query, Product.class)) {
+            stale = SeedPlan.stale(stored::iterator, seedIds);
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(stale)), COLLECTION);
+        eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+        return stale.size();
     }
-    
-    private List<Product> loadProductsFromJson() throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        
+
+    private File findSeedFile() {
         // Try to find the JSON file in the project root
         File jsonFile = new File("ecommerce.products.json");
         if (!jsonFile.exists()) {
@@ -139,50 +181,29 @@ public class DataInitializer implements CommandLineRunner {
             // Try in the current working directory
             jsonFile = new File(System.getProperty("user.dir") + "/ecommerce.products.json");
         }
-        
-        if (!jsonFile.exists()) {
-            throw new IOException("ecommerce.products.json file not found. Please ensure the file exists in the project root.");
-        }
-        
-        System.out.println("Loading products from: " + jsonFile.getAbsolutePath());
-        
-        try (FileReader reader = new FileReader(jsonFile)) {
-            List<Product> products = mapper.readValue(reader, new TypeReference<List<Product>>() {});
-            System.out.println("Successfully loaded " + products.size() + " products from JSON");
-            
-            // Log first few products to verify GitHub URLs
-            for (int i = 0; i < Math.min(3, products.size()); i++) {
-                Product product = products.get(i);
-                System.out.println("Sample product " + (i + 1) + ": " + product.getName());
-                if (product.getImages() != null && !product.getImages().isEmpty()) {
-                    System.out.println("  First image URL: " + product.getImages().get(0));
-                }
-            }
-            
-            return products;
-        }
+        return jsonFile.exists() ? jsonFile : null;
     }
-    
-    private void updateProductDiscounts() {
-        List<Product> allProducts = productRepository.findAll();
-        Random random = new Random();
-        
-        System.out.println("Updating discounts for " + allProducts.size() + " products...");
-        
-        for (Product product : allProducts) {
-            // Set random discount for 30% of products (30-70% off)
-            if (random.nextDouble() < 0.3) {
-                double discountPercentage = 30 + random.nextDouble() * 40; // 30-70% discount
-                double discountAmount = product.getPrice() * (discountPercentage / 100.0);
-                product.setDiscountPrice(product.getPrice() - discountAmount);
-                product.setOnSale(true);
-            } else {
-                product.setDiscountPrice(0.0);
-                product.setOnSale(false);
+
+    // State of one seeding run, written to by the importer's workers
+    private class SeedRun {
+        final Set<String> seedIds = ConcurrentHashMap.newKeySet();
+        final Map<String, LongAdder> categoryCounts = new ConcurrentHashMap<>();
+        final LongAdder inserted = new LongAdder();
+        final LongAdder updated = new LongAdder();
+
+        long apply(List<Product> batch, long now) {
+            for (Product product : batch) {
+                seedIds.add(product.getId());
+                categoryCounts.computeIfAbsent(String.valueOf(product.getCategory()), category -> new LongAdder()).increment();
+            }
+            SeedPlan plan = SeedPlan.of(batch, loadStoredSeedState(batch), mongoTemplate.getConverter(), now);
+            if (plan.isEmpty()) {
+                return 0;
             }
+            DataInitializer.this.apply(plan, now);
+            inserted.add(plan.inserts.size());
+            updated.add(plan.updates.size());
+            return plan.inserts.size() + plan.updates.size();
         }
-        
-        productRepository.saveAll(allProducts);
-        System.out.println("Successfully updated discounts for all products!");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.ecommerce.config;
+
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The writes that bring the stored catalog in line with one batch of seed data: inserts for new
+ * products and updates for products whose seed content changed. Products are compared by a hash of
+ * their seed-owned fields, so an unchanged seed plans no writes at all. Stock, rating and review
+ * counts belong to the running shop and are never overwritten once a product exists. A seed-owned
+ * field the changed seed record no longer has is unset, since the converter leaves nulls out and
+ * $set alone would keep the old value. Seeded
+ * products that left the seed are found by {@link #stale} once the whole seed has been read.
+ */
+class SeedPlan {
+    // Fields the shop owns after the first insert, plus bookkeeping that is not seed content
+    private static final Set<String> NOT_SEED_OWNED = Set.of("stock", "rating", "reviewCount", "updatedAt", "seedHash", "isNew", "_class");
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final long NEW_ARRIVAL_MS = 30 * DAY_MS;
+
+    final List<Document> inserts = new ArrayList<>();
+    final Map<String, Document> updates = new TreeMap<>();
+    // Seed-owned fields to $unset alongside an update, by product id
+    final Map<String, List<String>> unsets = new TreeMap<>();
+
+    boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty();
+    }
+
+    /**
+     * @param stored the stored state of the batch's products, projected to id, seedHash, createdAt and isNew
+     */
+    static SeedPlan of(List<Product> seed, Map<String, Product> stored, MongoConverter converter, long now) {
+        SeedPlan plan = new SeedPlan();
+        Set<String> seedOwned = seedOwnedFields(converter);
+        for (Product product : seed) {
+            applyDerivedFields(product);
+
+            Document document = new Document();
+            converter.write(product, document);
+            // A seed without createdAt keeps whatever date the product was first given
+            boolean seedHasCreatedAt = product.getCreatedAt() > 0;
+            if (!seedHasCreatedAt) {
+                document.remove("createdAt");
+            }
+            Document content = new Document(document);
+            content.keySet().removeAll(NOT_SEED_OWNED);
+            String hash = hash(content);
+
+            Product existing = stored.get(product.getId());
+            if (existing == null) {
+                long createdAt = seedHasCreatedAt ? product.getCreatedAt() : now - new Random(seedOf(product)).nextInt(60) * DAY_MS;
+                document.put("createdAt", createdAt);
+                document.put("isNew", now - createdAt < NEW_ARRIVAL_MS);
+                document.put("updatedAt", now);
+                document.put("seedHash", hash);
+                plan.inserts.add(document);
+                continue;
+            }
+
+            long createdAt = seedHasCreatedAt ? product.getCreatedAt() : existing.getCreatedAt();
+            boolean isNew = now - createdAt < NEW_ARRIVAL_MS;
+            if (!hash.equals(existing.getSeedHash())) {
+                Document changes = new Document();
+                content.forEach((field, value) -> {
+                    if (!"_id".equals(field)) {
+                        changes.put(field, value);
+                    }
+                });
+                changes.put("isNew", isNew);
+                changes.put("seedHash", hash);
+                plan.updates.put(product.getId(), changes);
+                List<String> removed = seedOwned.stream().filter(field -> !content.containsKey(field)).toList();
+                if (!removed.isEmpty()) {
+                    plan.unsets.put(product.getId(), removed);
+                }
+            } else if (existing.isNew() != isNew) {
+                // The only time-dependent field: products age out of "new" without the seed changing
+                plan.updates.put(product.getId(), new Document("isNew", isNew));
+            }
+        }
+        return plan;
+    }
+
+    // Every stored Product field the seed writes; createdAt is left out, a seed without it keeps the stored date
+    private static Set<String> seedOwnedFields(MongoConverter converter) {
+        Set<String> fields = new TreeSet<>();
+        converter.getMappingContext().getRequiredPersistentEntity(Product.class)
+                .forEach(property -> fields.add(property.getFieldName()));
+        fields.removeAll(NOT_SEED_OWNED);
+        fields.remove("_id");
+        fields.remove("createdAt");
+        return fields;
+    }
+
+    /**
+     * Ids of seeded products that are no longer in the seed. Only products the seeder wrote are
+     * its to delete; imported or admin-created ones stay.
+     */
+    static List<String> stale(Iterable<Product> stored, Set<String> seedIds) {
+        List<String> stale = new ArrayList<>();
+        for (Product product : stored) {
+            if (product.getSeedHash() != null && !seedIds.contains(product.getId())) {
+                stale.add(product.getId());
+            }
+        }
+        Collections.sort(stale);
+        return stale;
+    }
+
+    // Featured and discount flags drawn from a generator seeded by the product id, so they survive restarts
+    static void applyDerivedFields(Product product) {
+        Random random = new Random(seedOf(product));
+
+        // Set 20% of products as featured
+        product.setFeatured(random.nextDouble() < 0.2);
+
+        // Set random discount for 30% of products (30-70% off)
+        if (random.nextDouble() < 0.3) {
+            double discountPercentage = 30 + random.nextDouble() * 40;
+            double discountAmount = product.getPrice() * (discountPercentage / 100.0);
+            product.setDiscountPrice(product.getPrice() - discountAmount);
+            product.setOnSale(true);
+        } else {
+            product.setDiscountPrice(0.0);
+            product.setOnSale(false);
+        }
+
+        // Set slug if not already set
+        if (product.getSlug() == null || product.getSlug().isEmpty()) {
+            product.setSlug(product.getId().toLowerCase());
+        }
+    }
+
+    // String.hashCode is specified, so the same id seeds the same sequence on every JVM
+    private static long seedOf(Product product) {
+        return product.getId().hashCode();
+    }
+
+    static String hash(Document document) {
+        Object canonical = canonical(document);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(new Document("seed", canonical).toJson().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Sorted keys at every level: specs built with Map.of iterate in a different order per JVM
+    private static Object canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            map.forEach((key, nested) -> sorted.put(String.valueOf(key), canonical(nested)));
+            return new Document(sorted);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(SeedPlan::canonical).toList();
+        }
+        return value;
+    }
+}
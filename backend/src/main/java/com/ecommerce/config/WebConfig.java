@@ -1,5 +1,10 @@
 package com.ecommerce.config;
 
+import com.ecommerce.image.HashedImageResolver;
+import com.ecommerce.image.ImageDerivatives;
+import com.ecommerce.image.ImageVariantResolver;
+import com.ecommerce.image.ProductImageIndex;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -15,6 +20,12 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.images.base-path:./Products}")
     private String imagesBasePath;
 
+    @Autowired
+    private ImageDerivatives imageDerivatives;
+
+    @Autowired
+    private ProductImageIndex productImageIndex;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -30,6 +41,10 @@ public class WebConfig implements WebMvcConfigurer {
         // Serve product images from the Products folder
         registry.addResourceHandler("/products/**")
                 .addResourceLocations("file:" + imagesBasePath + "/")
-                .setCachePeriod(3600); // Cache for 1 hour
+                .setCachePeriod(3600) // Cache for 1 hour; content-hashed names are cached for a year
+                // No resolver cache: it keys on the path alone and would ignore ?w= and Accept
+                .resourceChain(false)
+                .addResolver(new HashedImageResolver(productImageIndex))
+                .addResolver(new ImageVariantResolver(imageDerivatives));
     }
 }
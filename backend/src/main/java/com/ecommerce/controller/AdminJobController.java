@@ -0,0 +1,32 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.job.Job;
+import com.ecommerce.job.JobRegistry;
+import com.ecommerce.job.JobStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Status of background admin jobs, newest first
+@RestController
+@RequestMapping("/api/admin/jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"}, allowCredentials = "false")
+public class AdminJobController {
+    private final JobRegistry jobRegistry;
+
+    @GetMapping
+    public ResponseEntity<List<JobStatus>> getJobs() {
+        return ResponseEntity.ok(jobRegistry.recent());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable String id) {
+        return jobRegistry.find(id)
+                .map(Job::status)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.catalog.BrandIndex;
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.dto.BrandNode;
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.PayloadCache;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/brands")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"}, allowCredentials = "false")
+public class BrandController {
+    private final BrandIndex brandIndex;
+    private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final PayloadCache payloadCache;
+
+    @GetMapping
+    public ResponseEntity<byte[]> getBrands(WebRequest request) {
+        PayloadCache.Payload payload = payloadCache.get("brands:directory", brandIndex::getBrands);
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
+    }
+
+    @GetMapping("/{slug}")
+    public ResponseEntity<BrandNode> getBrand(@PathVariable String slug, WebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+        return brandIndex.findBySlug(slug)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Brand page listing; the brand (+ category) filter is answered from the {brand, category} index
+    @GetMapping("/{slug}/products")
+    public ResponseEntity<?> getBrandProducts(
+            @PathVariable String slug,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "card") String view,
+            WebRequest request
+    ) {
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+
+        Optional<BrandNode> brand = brandIndex.findBySlug(slug);
+        if (brand.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ProductFilter filter = ProductFilter.builder()
+                .brand(brand.get().getName())
+                .category(category)
+                .build();
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(sortDir), sortBy));
+        Class<?> type = "full".equalsIgnoreCase(view) ? Product.class : ProductCard.class;
+        return ResponseEntity.ok(productService.findProducts(filter, pageRequest, type));
+    }
+}
@@ -1,8 +1,13 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.catalog.CategoryIndex;
+import com.ecommerce.dto.CategoryNode;
+import com.ecommerce.service.PayloadCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 
@@ -12,53 +17,43 @@ import java.util.*;
 public class CategoryController {
 
     @Autowired
-    private com.ecommerce.repository.ProductRepository productRepository;
+    private CategoryIndex categoryIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private PayloadCache payloadCache;
 
     @GetMapping
-    public ResponseEntity<?> getCategories() {
+    public ResponseEntity<?> getCategories(WebRequest request) {
         try {
-            // Return hardcoded categories for now
-            List<Map<String, Object>> categories = new ArrayList<>();
-            
-            Map<String, Object> category1 = new HashMap<>();
-            category1.put("name", "Electronics");
-            category1.put("slug", "electronics");
-            category1.put("subcategories", new ArrayList<>());
-            categories.add(category1);
-            
-            Map<String, Object> category2 = new HashMap<>();
-            category2.put("name", "Fashion");
-            category2.put("slug", "fashion");
-            category2.put("subcategories", new ArrayList<>());
-            categories.add(category2);
-            
-            Map<String, Object> category3 = new HashMap<>();
-            category3.put("name", "Sports");
-            category3.put("slug", "sports");
-            category3.put("subcategories", new ArrayList<>());
-            categories.add(category3);
-            
-            Map<String, Object> category4 = new HashMap<>();
-            category4.put("name", "Home & Garden");
-            category4.put("slug", "home-garden");
-            category4.put("subcategories", new ArrayList<>());
-            categories.add(category4);
-            
-            return ResponseEntity.ok(categories);
+            PayloadCache.Payload payload = payloadCache.get("categories:tree", categoryIndex::getTree);
+            return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch categories: " + e.getMessage()));
         }
     }
 
     @GetMapping("/{slug}")
-    public ResponseEntity<?> getCategoryBySlug(@PathVariable String slug) {
+    public ResponseEntity<?> getCategoryBySlug(@PathVariable String slug, WebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+
         try {
+            Optional<CategoryNode> node = categoryIndex.findBySlug(slug);
+            if (node.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
             Map<String, Object> category = new HashMap<>();
-            category.put("name", "Category " + slug);
-            category.put("slug", slug);
+            category.put("name", node.get().getName());
+            category.put("slug", node.get().getSlug());
+            category.put("count", node.get().getCount());
             category.put("description", "Description for " + slug);
             category.put("image", "https://placehold.co/800x600/6366f1/ffffff?text=Category");
-            category.put("subcategories", new ArrayList<>());
+            category.put("subcategories", node.get().getSubcategories());
             
             return ResponseEntity.ok(category);
         } catch (Exception e) {
@@ -67,15 +62,19 @@ public class CategoryController {
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<?> getCategoryStats() {
+    public ResponseEntity<?> getCategoryStats(WebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+
         try {
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalCategories", 4);
-            stats.put("totalProducts", 130);
+            stats.put("totalCategories", categoryIndex.getTree().size());
+            stats.put("totalProducts", categoryIndex.getTotalProducts());
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch category stats: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
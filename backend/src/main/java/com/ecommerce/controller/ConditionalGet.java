@@ -0,0 +1,77 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.service.PayloadCache;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * If-None-Match / If-Modified-Since handling for catalog endpoints. Call it before doing any work:
+ * when it returns true the 304 is already written and the handler just returns null.
+ */
+public final class ConditionalGet {
+
+    // Validators only pay off if clients come back to revalidate instead of caching heuristically
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    public static boolean notModified(WebRequest request, CatalogVersion version) {
+        return notModified(request, version.getETag(), version.getLastModified());
+    }
+
+    /**
+     * Serves pre-rendered bytes, gzip when the client accepts it. The content hash makes a strong
+     * ETag, so the two encodings get distinct tags and identical content keeps its tag across rebuilds.
+     */
+    public static ResponseEntity<byte[]> serve(WebRequest request, PayloadCache.Payload payload, long lastModified) {
+        boolean gzip = payload.getGzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = "\"" + payload.getContentHash() + (gzip ? "-gz" : "") + "\"";
+        if (notModified(request, etag, lastModified)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            // Tomcat leaves bodies that already carry a Content-Encoding alone
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return response.body(payload.getJson());
+    }
+
+    public static boolean notModified(WebRequest request, String etag, long lastModified) {
+        if (request instanceof NativeWebRequest nativeRequest
+                && nativeRequest.getNativeResponse() instanceof HttpServletResponse response) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip") && !parts[0].trim().equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
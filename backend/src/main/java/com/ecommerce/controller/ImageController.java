@@ -1,24 +1,35 @@
 package com.ecommerce.controller;
 
-import org.springframework.http.MediaType;
+import com.ecommerce.image.HashedImageResolver;
+import com.ecommerce.image.ImageDerivatives;
+import com.ecommerce.image.ImageStreamer;
+import com.ecommerce.image.ProductImageIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/images")
 @CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"})
 public class ImageController {
 
-    private static final String PRODUCTS_BASE_PATH = "/app/Products/";
+    @Autowired
+    private ImageDerivatives imageDerivatives;
+
+    @Autowired
+    private ImageStreamer imageStreamer;
+
+    @Autowired
+    private ProductImageIndex productImageIndex;
 
     @GetMapping("/test")
     public ResponseEntity<String> testEndpoint() {
@@ -26,47 +37,54 @@ public class ImageController {
     }
 
     @GetMapping("/product/{category}/{productName}/{imageName}")
-    public ResponseEntity<Resource> getProductImage(
+    public void getProductImage(
             @PathVariable String category,
             @PathVariable String productName,
-            @PathVariable String imageName) {
-        
+            @PathVariable String imageName,
+            @RequestParam(required = false) Integer w,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
         try {
-            // URL decode the parameters
-            String decodedCategory = URLDecoder.decode(category, StandardCharsets.UTF_8);
-            String decodedProductName = URLDecoder.decode(productName, StandardCharsets.UTF_8);
-            String decodedImageName = URLDecoder.decode(imageName, StandardCharsets.UTF_8);
-            
-            // Construct the file path
-            Path imagePath = Paths.get(PRODUCTS_BASE_PATH, decodedCategory, decodedProductName, decodedImageName);
-            
-            if (!Files.exists(imagePath)) {
-                return ResponseEntity.notFound().build();
+            // Path variables arrive percent-decoded; links built with form encoding still carry '+' for spaces
+            String relativePath = (category + "/" + productName + "/" + imageName).replace('+', ' ');
+            Optional<ProductImageIndex.Hashed> hashed = ProductImageIndex.parse(relativePath);
+            if (hashed.isPresent()) {
+                relativePath = hashed.get().path();
+            }
+
+            // Hits and misses alike are answered from the in-memory index, without probing the disk
+            Optional<ProductImageIndex.ImageFile> image = productImageIndex.find(relativePath);
+            if (image.isEmpty()) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
             }
-            
-            Resource resource = new FileSystemResource(imagePath.toFile());
-            
-            // Determine content type based on file extension
-            String contentType = getContentType(imageName);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
-                    
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
-    }
 
-    private String getContentType(String fileName) {
-        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
-        
-        return switch (extension) {
-            case "jpg", "jpeg" -> "image/jpeg";
-            case "png" -> "image/png";
-            case "webp" -> "image/webp";
-            case "gif" -> "image/gif";
-            default -> "application/octet-stream";
-        };
+            // Content-hashed names never change, so they can be cached for good; a stale hash still gets the current file
+            if (hashed.isPresent() && hashed.get().hash().equals(image.get().hash())) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, HashedImageResolver.IMMUTABLE.getHeaderValue());
+            } else {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(Duration.ofHours(1)).getHeaderValue());
+            }
+
+            // ?w= asks for the smallest generated variant at least that wide
+            if (w != null && w > 0) {
+                Optional<ImageDerivatives.Variant> variant = imageDerivatives.resolve(image.get().path(), w, accept);
+                if (variant.isPresent()) {
+                    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                    imageStreamer.stream(request, response, variant.get().path(), variant.get().mediaType());
+                    return;
+                }
+            }
+
+            imageStreamer.stream(request, response, image.get());
+
+        } catch (IOException e) {
+            // Usually the client went away mid-transfer; nothing left to answer once committed
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
     }
 }
@@ -1,33 +1,64 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.catalog.BrandIndex;
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.dto.ProductBatchRequest;
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.image.ImagePathRepairJob;
+import com.ecommerce.job.Job;
+import com.ecommerce.job.JobRegistry;
+import com.ecommerce.job.JobStatus;
 import com.ecommerce.model.Product;
+import com.ecommerce.recommendation.RelatedProductsIndex;
+import com.ecommerce.service.PayloadCache;
+import com.ecommerce.service.ProductExporter;
 import com.ecommerce.service.ProductService;
-import com.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 @CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"}, allowCredentials = "false")
 public class ProductController {
+    private static final String RELEVANCE = "relevance";
+    private static final String CARD = "card";
+    private static final String FULL = "full";
+
     private final ProductService productService;
     private final MongoTemplate mongoTemplate;
-    private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
+    private final PayloadCache payloadCache;
+    private final RelatedProductsIndex relatedProducts;
+    private final BrandIndex brandIndex;
+    private final JobRegistry jobRegistry;
+    private final ImagePathRepairJob imagePathRepairJob;
+    private final ProductExporter productExporter;
+
+    @Value("${app.batch.max-size:200}")
+    private int maxBatchSize;
 
     @GetMapping
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(required = false) String category,
@@ -35,106 +66,231 @@ public class ProductController {
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
-            @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Boolean isNew,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = CARD) String view,
+            WebRequest request
     ) {
+        // Listings only change when the catalog does, so a matching version skips the query entirely
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+
         Sort.Direction direction = Sort.Direction.fromString(sortDir);
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        
-        Page<Product> products = productService.findProducts(
-            category, subcategory, search, minPrice, maxPrice, pageRequest
-        );
-        
+        // Searches are ranked by relevance unless the client asks for a specific order
+        String sortField = sortBy != null ? sortBy : (search != null && !search.isBlank() ? RELEVANCE : "name");
+        Sort sort = RELEVANCE.equals(sortField) ? Sort.unsorted() : Sort.by(direction, sortField);
+
+        ProductFilter filter = ProductFilter.builder()
+                .category(category)
+                .subcategory(subcategory)
+                .search(search)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .brand(brand)
+                .minRating(minRating)
+                .inStock(inStock)
+                .onSale(onSale)
+                .newArrival(isNew)
+                .featured(featured)
+                .build();
+
+        // Passing cursor (empty for the first slice) switches to count-free keyset pagination
+        Object products;
+        if (cursor != null) {
+            try {
+                products = productService.findProductsAfter(filter, sort, size, cursor.isBlank() ? null : cursor, viewType(view));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        } else {
+            products = productService.findProducts(filter, PageRequest.of(page, size, sort), viewType(view));
+        }
+
+        if (facets) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("products", products);
+            response.put("facets", productService.findFacets(filter));
+            return ResponseEntity.ok(response);
+        }
         return ResponseEntity.ok(products);
     }
 
+    // Multi-get for cart, wishlist, comparison and recently-viewed: ?ids=a,b,c
+    @GetMapping("/batch")
+    public ResponseEntity<?> getProductsBatch(
+            @RequestParam List<String> ids,
+            @RequestParam(defaultValue = CARD) String view
+    ) {
+        return batch(ids, view);
+    }
+
+    // Same as the GET form, for id lists too long for a URL
+    @PostMapping("/batch")
+    public ResponseEntity<?> postProductsBatch(@RequestBody ProductBatchRequest request) {
+        return batch(request.getIds() != null ? request.getIds() : List.of(), request.getView());
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        return productService.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Product> getProductById(@PathVariable String id, WebRequest request) {
+        Optional<Product> product = productService.findById(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Per-document validator; older documents without updatedAt fall back to the catalog version
+        long updatedAt = product.get().getUpdatedAt();
+        boolean notModified = updatedAt > 0
+                ? ConditionalGet.notModified(request, "\"p" + Long.toHexString(updatedAt) + "\"", updatedAt)
+                : ConditionalGet.notModified(request, catalogVersion);
+        return notModified ? null : ResponseEntity.ok(product.get());
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<?> getRelatedProducts(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "4") int limit,
+            @RequestParam(defaultValue = CARD) String view
+    ) {
+        int capped = Math.max(0, Math.min(limit, 24));
+        Optional<List<ProductCard>> related = relatedProducts.related(id, capped);
+        if (related.isEmpty()) {
+            // Unknown to the index: either no such product, or the index is still being computed
+            return productService.findById(id).isPresent()
+                    ? ResponseEntity.ok(List.of())
+                    : ResponseEntity.notFound().build();
+        }
+        if (FULL.equalsIgnoreCase(view)) {
+            List<String> ids = related.get().stream().map(ProductCard::getId).toList();
+            return ResponseEntity.ok(productService.findBatch(ids, Product.class).getProducts());
+        }
+        return ResponseEntity.ok(related.get());
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<Product>> getProductsByCategory(
+    public ResponseEntity<?> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = CARD) String view,
+            WebRequest request
     ) {
+        if (ConditionalGet.notModified(request, catalogVersion)) {
+            return null;
+        }
+
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(productService.findByCategoryAfter(category, size, cursor.isBlank() ? null : cursor, viewType(view)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
+
         PageRequest pageRequest = PageRequest.of(page, size);
-        Page<Product> products = productService.findByCategory(category, pageRequest);
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(productService.findByCategory(category, pageRequest, viewType(view)));
     }
 
     @GetMapping("/featured")
-    public ResponseEntity<List<Product>> getFeaturedProducts() {
-        return ResponseEntity.ok(productService.findFeaturedProducts());
+    public ResponseEntity<byte[]> getFeaturedProducts(@RequestParam(defaultValue = CARD) String view, WebRequest request) {
+        Class<?> type = viewType(view);
+        PayloadCache.Payload payload = payloadCache.get("featured:" + type.getSimpleName(), () -> productService.findFeaturedProducts(type));
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
     }
 
     @GetMapping("/new")
-    public ResponseEntity<List<Product>> getNewProducts() {
-        return ResponseEntity.ok(productService.findNewProducts());
+    public ResponseEntity<byte[]> getNewProducts(@RequestParam(defaultValue = CARD) String view, WebRequest request) {
+        Class<?> type = viewType(view);
+        PayloadCache.Payload payload = payloadCache.get("new:" + type.getSimpleName(), () -> productService.findNewProducts(type));
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
     }
 
     @GetMapping("/on-sale")
-    public ResponseEntity<List<Product>> getOnSaleProducts() {
-        return ResponseEntity.ok(productService.findOnSaleProducts());
+    public ResponseEntity<byte[]> getOnSaleProducts(@RequestParam(defaultValue = CARD) String view, WebRequest request) {
+        Class<?> type = viewType(view);
+        PayloadCache.Payload payload = payloadCache.get("on-sale:" + type.getSimpleName(), () -> productService.findOnSaleProducts(type));
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<Map<String, List<String>>> getCategories() {
-        return ResponseEntity.ok(productService.getAllCategories());
+    public ResponseEntity<byte[]> getCategories(WebRequest request) {
+        PayloadCache.Payload payload = payloadCache.get("categories:names", productService::getAllCategories);
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
+    }
+
+    // Brand names for filter dropdowns; the full directory with counts lives under /api/brands
+    @GetMapping("/brands")
+    public ResponseEntity<byte[]> getBrands(WebRequest request) {
+        PayloadCache.Payload payload = payloadCache.get("brands:names", brandIndex::getBrandNames);
+        return ConditionalGet.serve(request, payload, catalogVersion.getLastModified());
     }
 
+    // Runs in the background; poll /api/admin/jobs/{id} for progress
     @PostMapping("/fix-images")
-    public ResponseEntity<Map<String, Object>> fixImagePaths() {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            List<Product> allProducts = productRepository.findAll();
-            int updatedCount = 0;
-            
-            for (Product product : allProducts) {
-                String category = product.getCategory();
-                String name = product.getName();
-                
-                // Create correct image paths - try different extensions
-                List<String> imagePaths = new ArrayList<>();
-                
-                // Use correct extensions based on actual files
-                // Electronics: mostly jpg, some webp
-                // Fashion: mix of jpg and webp
-                String[] extensions;
-                if ("Electronics".equals(category)) {
-                    extensions = new String[]{"jpg", "jpg", "jpg"}; // Most electronics use jpg
-                } else if ("Fashion".equals(category)) {
-                    extensions = new String[]{"jpg", "jpg", "jpg"}; // Most fashion use jpg
-                } else {
-                    extensions = new String[]{"jpg", "jpg", "jpg"}; // Default to jpg
-                }
-                
-                for (int i = 0; i < 3; i++) {
-                    imagePaths.add("/products/" + category + "/" + name + "/" + (i + 1) + "." + extensions[i]);
-                }
-                
-                // Update product with correct image paths
-                product.setImages(imagePaths);
-                productRepository.save(product);
-                
-                updatedCount++;
+    public ResponseEntity<JobStatus> fixImagePaths() {
+        Job job = jobRegistry.submit(ImagePathRepairJob.TYPE, imagePathRepairJob);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/admin/jobs/{id}").buildAndExpand(job.getId()).toUri())
+                .body(job.status());
+    }
+
+    // NDJSON straight off a cursor, gzipped when the client accepts it; the output format the import takes
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String subcategory,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Boolean isNew,
+            @RequestParam(required = false) Boolean featured,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        ProductFilter filter = ProductFilter.builder()
+                .category(category)
+                .subcategory(subcategory)
+                .search(search)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .brand(brand)
+                .minRating(minRating)
+                .inStock(inStock)
+                .onSale(onSale)
+                .newArrival(isNew)
+                .featured(featured)
+                .build();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            productExporter.export(filter, target);
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
             }
-            
-            response.put("success", true);
-            response.put("message", "Successfully updated " + updatedCount + " products");
-            response.put("updatedCount", updatedCount);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.status(500).body(response);
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(body);
     }
 
     @GetMapping("/verify")
@@ -162,7 +318,7 @@ public class ProductController {
                     response.put("sampleProduct", sampleProductData);
                 } else {
                     // If ELEC001 doesn't exist, get the first product
-                    Page<Product> firstPage = productService.findProducts(null, null, null, null, null, PageRequest.of(0, 1));
+                    Page<Product> firstPage = productService.findProducts(ProductFilter.empty(), PageRequest.of(0, 1), Product.class);
                     if (!firstPage.getContent().isEmpty()) {
                         Product product = firstPage.getContent().get(0);
                         Map<String, Object> sampleProductData = new HashMap<>();
@@ -197,6 +353,18 @@ public class ProductController {
         }
     }
     
+    private ResponseEntity<?> batch(List<String> ids, String view) {
+        if (ids.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxBatchSize + " ids per batch"));
+        }
+        return ResponseEntity.ok(productService.findBatch(ids, viewType(view)));
+    }
+
+    // Listings return cards unless the client asks for ?view=full
+    private static Class<?> viewType(String view) {
+        return FULL.equalsIgnoreCase(view) ? Product.class : ProductCard.class;
+    }
+
     private boolean testMongoConnection() {
         try {
             mongoTemplate.getCollection("products").countDocuments();
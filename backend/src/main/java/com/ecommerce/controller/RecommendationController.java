@@ -0,0 +1,86 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.catalog.Slugs;
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.RecommendationResponse;
+import com.ecommerce.recommendation.CoOccurrenceRecommender;
+import com.ecommerce.recommendation.Interaction;
+import com.ecommerce.recommendation.Recommendation;
+import com.ecommerce.recommendation.RelatedProductsIndex;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/recommendations")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"}, allowCredentials = "false")
+public class RecommendationController {
+    private static final int MAX_LIMIT = 50;
+
+    private final CoOccurrenceRecommender recommender;
+    private final RelatedProductsIndex relatedProducts;
+    private final ProductService productService;
+
+    @GetMapping
+    public ResponseEntity<RecommendationResponse> getRecommendations(
+            @RequestParam(required = false) String productId,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) String userId,
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(required = false) String type
+    ) {
+        int capped = Math.max(0, Math.min(limit, MAX_LIMIT));
+
+        // Content similarity comes from the precomputed related-products table
+        if ("SIMILAR".equals(type) && productId != null) {
+            Optional<List<ProductCard>> related = relatedProducts.related(productId, capped);
+            if (related.isPresent() && !related.get().isEmpty()) {
+                return ResponseEntity.ok(new RecommendationResponse(related.get(),
+                        "Similar in category, brand, price and description", 1.0, "content-similarity"));
+            }
+        }
+
+        Recommendation recommendation;
+        if ("TRENDING".equals(type)) {
+            // Over-fetch so a category filter still leaves enough products
+            recommendation = recommender.trending(categoryId != null ? capped * 4 : capped);
+        } else if (productId != null && !"PERSONALIZED".equals(type)) {
+            recommendation = recommender.forProduct(productId, capped);
+        } else if (userId != null) {
+            recommendation = recommender.forUser(userId, capped);
+        } else {
+            recommendation = recommender.trending(capped);
+        }
+
+        List<ProductCard> products = productService.findBatch(recommendation.getProductIds(), ProductCard.class).getProducts();
+        if (categoryId != null) {
+            products = products.stream()
+                    .filter(card -> categoryId.equalsIgnoreCase(card.getCategory()) || categoryId.equals(Slugs.of(card.getCategory())))
+                    .limit(capped)
+                    .toList();
+        }
+        return ResponseEntity.ok(new RecommendationResponse(products, recommendation.getReason(),
+                recommendation.getConfidence(), recommendation.getAlgorithm()));
+    }
+
+    @PostMapping("/events")
+    public ResponseEntity<Map<String, Object>> recordInteraction(@RequestBody Interaction interaction) {
+        if (interaction.getUserId() == null || interaction.getUserId().isBlank()
+                || interaction.getProductId() == null || interaction.getProductId().isBlank()
+                || interaction.getType() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "userId, productId and type (VIEW, CART, ORDER) are required"));
+        }
+        // Only catalog products may grow the model; the lookup is answered from the product cache
+        if (productService.findById(interaction.getProductId()).isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown productId " + interaction.getProductId()));
+        }
+        recommender.record(interaction);
+        return ResponseEntity.accepted().body(Map.of("success", true));
+    }
+}
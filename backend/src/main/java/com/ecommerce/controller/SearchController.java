@@ -0,0 +1,27 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.SearchSuggestion;
+import com.ecommerce.search.SuggestionIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "https://ecommerce-site-five-phi.vercel.app"}, allowCredentials = "false")
+public class SearchController {
+    private static final int MAX_LIMIT = 20;
+
+    private final SuggestionIndex suggestionIndex;
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<SearchSuggestion>> getSuggestions(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(suggestionIndex.suggest(query, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BrandNode {
+    String name;
+    String slug;
+    long count;
+    // How the brand's products spread over categories, largest first
+    List<CategoryCount> categories;
+
+    @Value
+    public static class CategoryCount {
+        String name;
+        String slug;
+        long count;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class CategoryNode {
+    String name;
+    String slug;
+    long count;
+    List<SubcategoryNode> subcategories;
+
+    @Value
+    public static class SubcategoryNode {
+        String name;
+        String slug;
+        long count;
+    }
+}
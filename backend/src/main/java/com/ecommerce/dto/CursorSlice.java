@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+// One window of a keyset-paginated listing; there is no total, pass nextCursor back to continue
+@Value
+public class CursorSlice<T> {
+    List<T> content;
+    int size;
+    String nextCursor;
+    boolean hasNext;
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+// Result of a multi-get: products in request order, plus the requested ids/slugs that matched nothing
+@Value
+public class ProductBatch<T> {
+    List<T> products;
+    List<String> missing;
+}
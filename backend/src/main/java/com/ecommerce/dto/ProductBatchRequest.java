@@ -0,0 +1,12 @@
+package com.ecommerce.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductBatchRequest {
+    // Product ids or slugs, in the order the results should come back
+    private List<String> ids;
+    private String view;
+}
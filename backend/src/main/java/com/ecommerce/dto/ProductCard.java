@@ -0,0 +1,34 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Product;
+import lombok.Value;
+
+import java.util.List;
+
+// What a listing tile renders - read through a field projection, with images sliced to the first one
+@Value
+public class ProductCard {
+    String id;
+    String name;
+    String slug;
+    String brand;
+    String category;
+    String subcategory;
+    double price;
+    double discountPrice;
+    double rating;
+    int reviewCount;
+    int stock;
+    List<String> images;
+    boolean isNew;
+    boolean isOnSale;
+
+    public static ProductCard of(Product product) {
+        List<String> images = product.getImages();
+        return new ProductCard(product.getId(), product.getName(), product.getSlug(), product.getBrand(),
+                product.getCategory(), product.getSubcategory(), product.getPrice(), product.getDiscountPrice(),
+                product.getRating(), product.getReviewCount(), product.getStock(),
+                images == null || images.size() <= 1 ? images : List.of(images.get(0)),
+                product.isNew(), product.isOnSale());
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ProductFacets {
+    List<ValueCount> brands;
+    List<RangeCount> priceRanges;
+    List<RangeCount> ratings;
+    List<ValueCount> subcategories;
+
+    @Value
+    public static class ValueCount {
+        String value;
+        long count;
+    }
+
+    // [min, max) - max is null for the open-ended top bucket
+    @Value
+    public static class RangeCount {
+        double min;
+        Double max;
+        long count;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Normalized listing filter. Blank strings become null and search text is trimmed and lower-cased,
+ * so equivalent requests share the same cache key.
+ */
+@Value
+public class ProductFilter {
+    String category;
+    String subcategory;
+    String search;
+    Double minPrice;
+    Double maxPrice;
+    String brand;
+    Double minRating;
+    Boolean inStock;
+    Boolean onSale;
+    Boolean newArrival;
+    Boolean featured;
+
+    @Builder(toBuilder = true)
+    private ProductFilter(String category, String subcategory, String search, Double minPrice, Double maxPrice,
+                          String brand, Double minRating, Boolean inStock, Boolean onSale, Boolean newArrival,
+                          Boolean featured) {
+        this.category = trimToNull(category);
+        this.subcategory = trimToNull(subcategory);
+        String normalizedSearch = trimToNull(search);
+        this.search = normalizedSearch == null ? null : normalizedSearch.replaceAll("\\s+", " ").toLowerCase();
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.brand = trimToNull(brand);
+        this.minRating = minRating;
+        this.inStock = inStock;
+        this.onSale = onSale;
+        this.newArrival = newArrival;
+        this.featured = featured;
+    }
+
+    public static ProductFilter empty() {
+        return ProductFilter.builder().build();
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+// Shape expected by the frontend's useRecommendations hook
+@Value
+public class RecommendationResponse {
+    List<?> products;
+    String reason;
+    double confidence;
+    String algorithm;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page of full-text results. Only the best app.search.max-results matches are filtered and
+ * paged, so totalElements counts those; totalHits is every document the text matched, and
+ * truncated says the lower-ranked rest was left out.
+ */
+@Getter
+public class SearchPage<T> extends PageImpl<T> {
+    private final long totalHits;
+    private final boolean truncated;
+
+    public SearchPage(List<T> content, Pageable pageable, long total, long totalHits, boolean truncated) {
+        super(content, pageable, total);
+        this.totalHits = totalHits;
+        this.truncated = truncated;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchSuggestion {
+    String text;
+    // "product", "brand" or "category"
+    String type;
+    // Number of products behind a brand/category suggestion; absent for product suggestions
+    Integer count;
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Product;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED,
+        // Scope of the change is unknown (bulk writes, deleteAll) - treat the whole catalog as changed
+        RELOADED
+    }
+
+    /**
+     * Order of the listeners that keep the in-memory catalog views current. They run ahead of
+     * anything left at the default order, such as the payload cache built from those views.
+     */
+    public static final int INDEX_ORDER = 0;
+
+    private final Type type;
+    private final String productId;
+    private final Product product;
+    // Stored state before the write (id, category, subcategory, brand only); null if the product was new
+    private final Product previous;
+
+    public static ProductChangedEvent saved(Product product, Product previous) {
+        return new ProductChangedEvent(Type.SAVED, product.getId(), product, previous);
+    }
+
+    public static ProductChangedEvent deleted(String productId, Product previous) {
+        return new ProductChangedEvent(Type.DELETED, productId, null, previous);
+    }
+
+    public static ProductChangedEvent reloaded() {
+        return new ProductChangedEvent(Type.RELOADED, null, null, null);
+    }
+}
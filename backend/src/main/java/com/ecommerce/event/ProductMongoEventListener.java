@@ -0,0 +1,100 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns Mongo lifecycle events for products into {@link ProductChangedEvent}s, so every write that
+ * goes through the repository or MongoTemplate (including DataInitializer and fix-images) is seen
+ * by the caches and indexes without each caller having to remember to notify them.
+ *
+ * <p>A product without createdAt has never been stored: it is stamped on its first save, and no
+ * previous state is looked up for it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductMongoEventListener extends AbstractMongoEventListener<Product> {
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    // Previous grouping fields captured in the before-event for the after-event of the same write,
+    // which Spring Data publishes on the same thread. A failed write leaves one stale entry behind
+    // at most, replaced by the next before-event and never matched to another product.
+    private final ThreadLocal<Product> previous = new ThreadLocal<>();
+
+    // Every write moves updatedAt, which the HTTP validators are derived from
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Product> event) {
+        event.getSource().setUpdatedAt(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Product> event) {
+        Product product = event.getSource();
+        if (product.getCreatedAt() == 0) {
+            product.setCreatedAt(product.getUpdatedAt());
+            if (event.getDocument() != null) {
+                event.getDocument().put("createdAt", product.getCreatedAt());
+            }
+            previous.remove();
+        } else {
+            rememberPrevious(product.getId());
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Product> event) {
+        Product product = event.getSource();
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product, takePrevious(product.getId())));
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Product> event) {
+        rememberPrevious(singleId(event.getSource()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Product> event) {
+        String id = singleId(event.getSource());
+        if (id == null) {
+            // deleteAll() or a multi-document query
+            eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+        } else {
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(id, takePrevious(id)));
+        }
+    }
+
+    private void rememberPrevious(String id) {
+        if (id == null) {
+            previous.remove();
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("category", "subcategory", "brand");
+        previous.set(mongoTemplate.getObject().findOne(query, Product.class));
+    }
+
+    private Product takePrevious(String id) {
+        Product stored = previous.get();
+        previous.remove();
+        return stored != null && stored.getId().equals(id) ? stored : null;
+    }
+
+    private static String singleId(Document query) {
+        Object id = query.get("_id");
+        return id == null || id instanceof Document ? null : id.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.image;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves "1.a1b2c3d4e5.jpg" from "1.jpg". While the hash matches the file the response is marked
+ * immutable for a year; a stale hash still gets the current file, under the handler's normal
+ * cache period, so old pages keep working.
+ */
+@RequiredArgsConstructor
+public class HashedImageResolver implements ResourceResolver {
+    public static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ProductImageIndex imageIndex;
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        Optional<ProductImageIndex.Hashed> hashed = ProductImageIndex.parse(requestPath);
+        if (hashed.isEmpty()) {
+            return chain.resolveResource(request, requestPath, locations);
+        }
+
+        // The hash is plain hex, so stripping it from the still-encoded path is safe
+        Resource resource = chain.resolveResource(request, hashed.get().path(), locations);
+        if (resource == null) {
+            return null;
+        }
+        try {
+            ProductImageIndex.Hashed decoded = new ProductImageIndex.Hashed(
+                    URLDecoder.decode(hashed.get().path(), StandardCharsets.UTF_8), hashed.get().hash());
+            return imageIndex.isCurrent(decoded) ? new ImmutableResource(resource) : resource;
+        } catch (IllegalArgumentException | IOException e) {
+            return resource;
+        }
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourcePath, locations);
+    }
+
+    // Keeps whatever headers the resolved resource (e.g. a width variant) already carries
+    static final class ImmutableResource extends FileSystemResource implements HttpResource {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        ImmutableResource(Resource resource) throws IOException {
+            super(resource.getFile());
+            if (resource instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.setCacheControl(IMMUTABLE);
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bytes of the most requested images, held in direct buffers outside the heap. The heap only
+ * carries a small entry object per image, so collection cost does not grow with the cache size;
+ * Caffeine's W-TinyLFU admission keeps one-off requests from pushing out the popular images.
+ *
+ * <p>A file is read into memory only once it has been asked for admit-after times (counted in a
+ * small on-heap doorkeeper), so one-off requests never allocate a direct buffer that W-TinyLFU
+ * would then turn away; until then the caller streams the file from disk.
+ *
+ * <p>Entries are keyed by path and checked against the size and mtime the caller just read, so a
+ * replaced file is reloaded on its next request. Direct memory is returned when an evicted
+ * buffer is collected, so -XX:MaxDirectMemorySize should leave headroom above max-bytes.
+ */
+@Component
+public class ImageCache {
+    public static final String NAME = "productImages";
+
+    private static final int DOORKEEPER_SIZE = 10_000;
+
+    private final long maxEntryBytes;
+    private final int admitAfter;
+    private final Cache<Path, Entry> cache;
+    // Requests per path not yet cached; forgets paths that go quiet
+    private final Cache<Path, AtomicInteger> requests = Caffeine.newBuilder()
+            .maximumSize(DOORKEEPER_SIZE)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public ImageCache(
+            @Value("${app.images.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${app.images.cache.max-entry-bytes:2097152}") long maxEntryBytes,
+            @Value("${app.images.cache.admit-after:2}") int admitAfter,
+            MeterRegistry meterRegistry) {
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.admitAfter = Math.max(1, admitAfter);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(0, maxBytes))
+                .weigher((Path path, Entry entry) -> entry.buffer().capacity())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("images.cache.resident.bytes", this, ImageCache::residentBytes)
+                .description("Bytes of image data held off-heap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("images.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of image requests answered from the off-heap cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A read-only view of the file's bytes, loading them on a miss once the file has been asked
+     * for often enough. Null when it has not, when it is too large to cache or when it changed
+     * while being read; the caller then serves it from disk.
+     */
+    public ByteBuffer get(Path file, long length, long lastModified) {
+        ByteBuffer resident = getIfResident(file, length, lastModified);
+        if (resident != null) {
+            return resident;
+        }
+        if (length == 0 || length > maxEntryBytes) {
+            return null;
+        }
+        AtomicInteger seen = requests.get(file, path -> new AtomicInteger());
+        if (seen.incrementAndGet() < admitAfter) {
+            return null;
+        }
+
+        ByteBuffer buffer = load(file, (int) length);
+        if (buffer == null) {
+            return null;
+        }
+        requests.invalidate(file);
+        cache.put(file, new Entry(buffer, lastModified));
+        return buffer.duplicate();
+    }
+
+    // Only what is already in memory; never loads, and does not count towards admission
+    public ByteBuffer getIfResident(Path file, long length, long lastModified) {
+        Entry entry = cache.getIfPresent(file);
+        if (entry != null && entry.lastModified() == lastModified && entry.buffer().capacity() == length) {
+            return entry.buffer().duplicate();
+        }
+        return null;
+    }
+
+    // Whether exactly these bytes are in memory, without counting as a request in the stats
+    public boolean isResident(Path file, long length, long lastModified) {
+        Entry entry = cache.policy().getIfPresentQuietly(file);
+        return entry != null && entry.lastModified() == lastModified && entry.buffer().capacity() == length;
+    }
+
+    public long residentBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    // Caffeine settles weights on its maintenance thread; tests call this before reading the gauges
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private static ByteBuffer load(Path file, int length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            // Anything left means the file grew since its attributes were read
+            if (channel.size() != length) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private record Entry(ByteBuffer buffer, long lastModified) {
+    }
+}
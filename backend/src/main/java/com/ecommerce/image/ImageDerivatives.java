@@ -0,0 +1,345 @@
+package com.ecommerce.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Resized and re-encoded copies of the product images, cached on disk in a directory of their own
+ * so the originals stay untouched. Each source is decoded once and every configured width is written in
+ * one pass (largest first, each step scaling the previous one); a small ".meta" sidecar records the
+ * source width and marks the set as complete, so restarts reuse what is already on disk.
+ *
+ * <p>Formats are negotiated from Accept among those with an ImageIO writer on the classpath. The
+ * JDK ships JPEG and PNG writers; AVIF and WebP variants are produced as soon as a writer plugin
+ * for them is added, without code changes.
+ */
+@Slf4j
+@Service
+public class ImageDerivatives {
+
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp");
+
+    // Preferred first; only formats a writer exists for are ever produced
+    private static final Format AVIF = new Format("image/avif", "avif", true);
+    private static final Format WEBP = new Format("image/webp", "webp", true);
+    private static final Format JPEG = new Format("image/jpeg", "jpg", true);
+    private static final Format PNG = new Format("image/png", "png", false);
+
+    private final Path sourceRoot;
+    private final Path cacheRoot;
+    private final int[] widths;
+    private final float quality;
+    private final boolean pregenerate;
+    private final List<Format> modernFormats;
+
+    private final ExecutorService workers;
+    private final Map<Path, SourceInfo> sources = new ConcurrentHashMap<>();
+    private final Map<Path, CompletableFuture<SourceInfo>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageDerivatives(
+            @Value("${app.images.base-path:./Products}") String basePath,
+            @Value("${app.images.derivatives.path:data/image-cache}") String cachePath,
+            @Value("${app.images.derivatives.widths:200,400,800}") int[] widths,
+            @Value("${app.images.derivatives.quality:0.8}") float quality,
+            @Value("${app.images.derivatives.pregenerate:true}") boolean pregenerate) {
+        this.sourceRoot = Paths.get(basePath).toAbsolutePath().normalize();
+        this.cacheRoot = Paths.get(cachePath).toAbsolutePath().normalize();
+        this.widths = Arrays.stream(widths).filter(w -> w > 0).sorted().distinct().toArray();
+        this.quality = quality;
+        this.pregenerate = pregenerate;
+        this.modernFormats = Stream.of(AVIF, WEBP).filter(Format::writable).toList();
+
+        // Decoding is CPU bound; one worker per core, and no ImageIO temp files on disk
+        ImageIO.setUseCache(false);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "image-derivatives-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void pregenerate() {
+        if (!pregenerate || !Files.isDirectory(sourceRoot)) {
+            return;
+        }
+
+        List<Path> images;
+        try (Stream<Path> files = Files.walk(sourceRoot)) {
+            images = files.filter(Files::isRegularFile).filter(ImageDerivatives::isImage).toList();
+        } catch (IOException e) {
+            log.warn("Could not list product images under {}: {}", sourceRoot, e.getMessage());
+            return;
+        }
+
+        // Fire and forget across all cores; a request that arrives first joins the render in flight
+        long started = System.nanoTime();
+        CompletableFuture<?>[] pending = images.stream()
+                .map(image -> CompletableFuture.runAsync(() -> info(image), workers).exceptionally(error -> {
+                    log.warn("Could not pregenerate derivatives: {}", error.getMessage());
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(pending).whenComplete((ignored, error) -> log.info(
+                "Image derivatives ready for {} sources in {} ms", images.size(), (System.nanoTime() - started) / 1_000_000));
+    }
+
+    /**
+     * Resolves an image path relative to the images root without touching the disk, or empty
+     * when it escapes the root.
+     */
+    public Optional<Path> path(String relativePath) {
+        Path path = sourceRoot.resolve(relativePath).normalize();
+        return path.startsWith(sourceRoot) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Same as path(), but only for existing files
+    public Optional<Path> source(String relativePath) {
+        return path(relativePath).filter(Files::isRegularFile);
+    }
+
+    /**
+     * The variant of a source for a requested width and Accept header. Empty means the original
+     * should be served: the source cannot be decoded, or it is no wider than the width asked for.
+     */
+    public Optional<Variant> resolve(Path source, int requestedWidth, String accept) {
+        int width = widthFor(requestedWidth);
+        SourceInfo info;
+        try {
+            info = info(source);
+        } catch (RuntimeException e) {
+            log.warn("Serving original image, derivatives failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+        if (info.width() <= width) {
+            return Optional.empty();
+        }
+
+        for (Format format : formats(accept)) {
+            Path variant = variantPath(source, width, format);
+            if (Files.exists(variant)) {
+                return Optional.of(new Variant(variant, MediaType.parseMediaType(format.mediaType())));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // The smallest configured width that still covers the request; wider requests get the original
+    int widthFor(int requested) {
+        for (int width : widths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    List<Format> formats(String accept) {
+        List<Format> formats = new ArrayList<>(modernFormats.size() + 2);
+        if (accept != null) {
+            // Only an explicit mention counts; image/* and */* come from browsers that may not decode it
+            for (Format format : modernFormats) {
+                if (accept.contains(format.mediaType())) {
+                    formats.add(format);
+                }
+            }
+        }
+        formats.add(JPEG);
+        formats.add(PNG);
+        return formats;
+    }
+
+    private SourceInfo info(Path source) {
+        try {
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            SourceInfo info = sources.get(source);
+            if (info != null && info.modified() == modified) {
+                return info;
+            }
+
+            // A sidecar newer than the source means the whole set was written after the last edit
+            Path meta = metaPath(source);
+            if (Files.exists(meta) && Files.getLastModifiedTime(meta).toMillis() >= modified) {
+                info = new SourceInfo(modified, Integer.parseInt(Files.readString(meta, StandardCharsets.UTF_8).trim()));
+                sources.put(source, info);
+                return info;
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Regenerating derivatives of {}: {}", source, e.getMessage());
+        }
+        return generate(source);
+    }
+
+    // Renders on the calling thread; concurrent callers for the same source wait for that render
+    private SourceInfo generate(Path source) {
+        CompletableFuture<SourceInfo> mine = new CompletableFuture<>();
+        CompletableFuture<SourceInfo> running = inFlight.putIfAbsent(source, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            SourceInfo info = render(source);
+            mine.complete(info);
+            return info;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(source, mine);
+        }
+    }
+
+    private SourceInfo render(Path source) {
+        try {
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            BufferedImage image = ImageIO.read(source.toFile());
+            // Width 0 marks a source no reader understands; it is always served as is
+            int sourceWidth = image != null ? image.getWidth() : 0;
+
+            if (image != null) {
+                boolean alpha = image.getColorModel().hasAlpha();
+                List<Format> formats = new ArrayList<>(modernFormats);
+                formats.add(alpha ? PNG : JPEG);
+
+                BufferedImage current = image;
+                for (int i = widths.length - 1; i >= 0; i--) {
+                    if (widths[i] >= sourceWidth) {
+                        continue;
+                    }
+                    current = scale(current, widths[i], alpha);
+                    for (Format format : formats) {
+                        write(current, format, variantPath(source, widths[i], format));
+                    }
+                }
+            }
+
+            Path meta = metaPath(source);
+            Files.createDirectories(meta.getParent());
+            Path temp = Files.createTempFile(meta.getParent(), ".meta", ".tmp");
+            Files.writeString(temp, Integer.toString(sourceWidth), StandardCharsets.UTF_8);
+            Files.move(temp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            SourceInfo info = new SourceInfo(modified, sourceWidth);
+            sources.put(source, info);
+            return info;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not render derivatives of " + source, e);
+        }
+    }
+
+    // Halving before the final pass keeps bilinear filtering from aliasing on large reductions
+    static BufferedImage scale(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth()));
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            if (w / 2 > width) {
+                w /= 2;
+                h /= 2;
+            } else {
+                w = width;
+                h = height;
+            }
+            BufferedImage next = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, w, h, null);
+            graphics.dispose();
+            current = next;
+        } while (w != width);
+        return current;
+    }
+
+    // Written beside the final name and moved into place, so readers never see a partial file
+    private void write(BufferedImage image, Format format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".variant", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(format.mediaType()).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.lossy() && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path variantPath(Path source, int width, Format format) {
+        return cacheRoot.resolve(sourceRoot.relativize(source)).resolveSibling(
+                source.getFileName() + "." + width + "w." + format.extension());
+    }
+
+    private Path metaPath(Path source) {
+        return cacheRoot.resolve(sourceRoot.relativize(source)).resolveSibling(source.getFileName() + ".meta");
+    }
+
+    private static boolean isImage(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && SOURCE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase());
+    }
+
+    public record Variant(Path path, MediaType mediaType) {
+    }
+
+    record Format(String mediaType, String extension, boolean lossy) {
+        boolean writable() {
+            return ImageIO.getImageWritersByMIMEType(mediaType).hasNext();
+        }
+    }
+
+    private record SourceInfo(long modified, int width) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.image;
+
+/**
+ * Images under the images root were added, replaced or removed since the last notice. Published
+ * by {@link ProductImageIndex} once a burst of filesystem events has settled.
+ */
+public class ImageFilesChangedEvent {
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.image;
+
+import com.ecommerce.job.Job;
+import com.ecommerce.job.JobTask;
+import com.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Points every product's images at the files actually present in its folder under the images
+ * root ("Products/{category}/{name}/"), by their content-hashed names. Runs as an admin job
+ * through {@link ImageUrlRewriter#updateImages}, so products are streamed with a projection and
+ * only those whose image list really changes are written, in bulk batches. Products without a
+ * folder keep their images and are reported as job errors.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImagePathRepairJob implements JobTask {
+    public static final String TYPE = "fix-images";
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^a-z0-9/]");
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductImageIndex imageIndex;
+    private final ImageUrlRewriter imageUrlRewriter;
+
+    @Override
+    public String run(Job job) {
+        // Read the tree as it is now rather than trusting the watcher to have seen every change
+        imageIndex.scan();
+        Map<String, List<String>> folders = new HashMap<>();
+        imageIndex.byDirectory().forEach((folder, files) -> folders.put(folderKey(folder), files));
+
+        Query query = new Query();
+        query.fields().include("category", "name", "images");
+        job.setTotal(mongoTemplate.count(new Query(), Product.class));
+
+        LongAdder missing = new LongAdder();
+        imageUrlRewriter.updateImages(query, product -> {
+            job.processed(1);
+            String folder = product.getCategory() + "/" + product.getName();
+            List<String> files = folders.get(folderKey(folder));
+            if (files == null) {
+                missing.increment();
+                job.error(product.getId() + ": no images under " + folder);
+                return null;
+            }
+            return files.stream().map(this::url).toList();
+        }, job::changed);
+
+        return "Updated " + job.status().getChanged() + " products, " + missing.sum() + " without an image folder";
+    }
+
+    // Folder names drift from product names in case and punctuation ("Airpods Pro 2", "iPad Pro 11")
+    private static String folderKey(String folder) {
+        return NOT_ALPHANUMERIC.matcher(folder.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+
+    private String url(String relativePath) {
+        String directory = relativePath.substring(0, relativePath.lastIndexOf('/') + 1);
+        String name = imageIndex.hashedName(relativePath)
+                .orElse(relativePath.substring(relativePath.lastIndexOf('/') + 1));
+        return ImageUrlRewriter.PREFIX + directory + name;
+    }
+}
@@ -0,0 +1,199 @@
+package com.ecommerce.image;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Writes an image file, or the single byte range a client asked for. Popular images come from
+ * the off-heap {@link ImageCache}; the rest, first requests included, stream straight from disk,
+ * on Tomcat through the connector's sendfile so the bytes never enter the heap, elsewhere (and
+ * for small files) through FileChannel.transferTo.
+ *
+ * <p>Length and mtime come from one attribute read, or from the image index when the cached bytes
+ * match it; a strong ETag built from both makes If-Range and If-None-Match work.
+ */
+@Component
+public class ImageStreamer {
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this a plain write is cheaper than setting up sendfile (Tomcat's DefaultServlet uses the same cut-off)
+    private final long sendfileMinBytes;
+    private final ImageCache imageCache;
+
+    public ImageStreamer(@Value("${app.images.sendfile-min-bytes:49152}") long sendfileMinBytes, ImageCache imageCache) {
+        this.sendfileMinBytes = sendfileMinBytes;
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * The index's size and mtime are only trusted while the cache holds those exact bytes; a file
+     * replaced before the watcher caught up would otherwise go out with a stale Content-Length and
+     * ETag, so anything read from disk is stat'ed again first.
+     */
+    public void stream(HttpServletRequest request, HttpServletResponse response, ProductImageIndex.ImageFile image) throws IOException {
+        if (imageCache.isResident(image.path(), image.size(), image.lastModified())) {
+            stream(request, response, image.path(), image.size(), image.lastModified(), image.contentType());
+        } else {
+            stream(request, response, image.path(), image.contentType());
+        }
+    }
+
+    public void stream(HttpServletRequest request, HttpServletResponse response, Path file, MediaType contentType) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        stream(request, response, file, attributes.size(), attributes.lastModifiedTime().toMillis(), contentType);
+    }
+
+    // Length and mtime as last seen by the caller, e.g. from the image index
+    private void stream(HttpServletRequest request, HttpServletResponse response, Path file,
+                        long length, long lastModified, MediaType contentType) throws IOException {
+        String etag = etag(length, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers 304 / 412 for the conditional headers
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges = parseRanges(range);
+            // Several ranges would need multipart/byteranges; sending the whole file is also valid
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        // A range never loads the whole file into memory, but is cut from it when it is already there
+        boolean partial = count < length;
+        ByteBuffer cached = partial ? imageCache.getIfResident(file, length, lastModified)
+                : imageCache.get(file, length, lastModified);
+        if (cached != null) {
+            write(response.getOutputStream(), cached.limit((int) end + 1).position((int) start));
+            return;
+        }
+
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the region itself once the servlet returns; the end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Deleted after it was indexed
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        try (FileChannel channel = opened) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Tomcat's stream takes the buffer as is; anything else goes through a channel adapter
+    private static void write(OutputStream out, ByteBuffer bytes) throws IOException {
+        if (out instanceof CoyoteOutputStream coyote) {
+            coyote.write(bytes);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    static String etag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    // A stale If-Range turns the request into a plain GET for the whole current file
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Only a strong comparison counts for ranges, so a weak tag never matches
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // A malformed Range header is ignored rather than rejected
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
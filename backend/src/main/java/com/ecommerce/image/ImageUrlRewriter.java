@@ -0,0 +1,128 @@
+package com.ecommerce.image;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Points the locally served URLs in Product.images ("/products/...") at the current hashed file
+ * names. External URLs are left alone, as are paths to files the index does not know.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageUrlRewriter {
+    static final String PREFIX = "/products/";
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductImageIndex imageIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // The index hashed the files during startup, before the application became ready
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public int rewrite() {
+        Query query = Query.query(Criteria.where("images").regex("^" + Pattern.quote(PREFIX)));
+        query.fields().include("images");
+
+        long rewritten = updateImages(query, product -> product.getImages().stream().map(this::rewrite).toList(), written -> { });
+        if (rewritten > 0) {
+            log.info("Rewrote image URLs of {} products to their current content hashes", rewritten);
+        }
+        return (int) rewritten;
+    }
+
+    /**
+     * Streams the products the query finds and sets each one's images to what "images" returns,
+     * in unordered bulk batches. Products it returns null or their current list for are not
+     * written. Bulk writes skip the mapping events, so updatedAt is stamped here and the catalog
+     * is told through RELOADED once anything was written, even if a later batch fails. "written"
+     * hears the size of every batch once Mongo has taken it.
+     */
+    long updateImages(Query query, Function<Product, List<String>> images, LongConsumer written) {
+        long now = System.currentTimeMillis();
+        long total = 0;
+        int pending = 0;
+        BulkOperations bulk = null;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            for (Iterator<Product> it = products.iterator(); it.hasNext(); ) {
+                Product product = it.next();
+                List<String> updated = images.apply(product);
+                if (updated == null || updated.equals(product.getImages())) {
+                    continue;
+                }
+
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(product.getId())),
+                        new Update().set("images", updated).set("updatedAt", now));
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    total += pending;
+                    written.accept(pending);
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+            if (bulk != null) {
+                bulk.execute();
+                total += pending;
+                written.accept(pending);
+            }
+        } finally {
+            if (total > 0) {
+                eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+            }
+        }
+        return total;
+    }
+
+    // Files changed while running: move the stored URLs to the new hashes
+    @EventListener
+    public void onImageFilesChanged(ImageFilesChangedEvent event) {
+        rewrite();
+    }
+
+    // "/products/Fashion/Tee/1.jpg" or a stale "/products/Fashion/Tee/1.0123456789.jpg" -> current hashed name
+    String rewrite(String url) {
+        if (url == null || !url.startsWith(PREFIX)) {
+            return url;
+        }
+
+        String relative;
+        try {
+            relative = URLDecoder.decode(url.substring(PREFIX.length()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        String original = imageIndex.hash(relative).isPresent()
+                ? relative
+                : ProductImageIndex.parse(relative).map(ProductImageIndex.Hashed::path).orElse(relative);
+
+        String directory = url.substring(0, url.lastIndexOf('/') + 1);
+        return imageIndex.hashedName(original).map(name -> directory + name).orElse(url);
+    }
+}
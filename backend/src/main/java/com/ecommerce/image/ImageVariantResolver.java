@@ -0,0 +1,68 @@
+package com.ecommerce.image;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers "/products/**?w=400" with a resized variant; requests without a width, or for which no
+ * smaller variant exists, fall through to the original file.
+ */
+@RequiredArgsConstructor
+public class ImageVariantResolver implements ResourceResolver {
+    public static final String WIDTH_PARAM = "w";
+
+    private final ImageDerivatives derivatives;
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        Integer width = request != null ? width(request.getParameter(WIDTH_PARAM)) : null;
+        if (width != null) {
+            Optional<ImageDerivatives.Variant> variant = derivatives
+                    .source(URLDecoder.decode(requestPath, StandardCharsets.UTF_8))
+                    .flatMap(source -> derivatives.resolve(source, width, request.getHeader(HttpHeaders.ACCEPT)));
+            if (variant.isPresent()) {
+                return new VariantResource(variant.get());
+            }
+        }
+        return chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourcePath, locations);
+    }
+
+    static Integer width(String value) {
+        if (value == null || value.isEmpty() || value.length() > 5 || !value.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        int width = Integer.parseInt(value);
+        return width > 0 ? width : null;
+    }
+
+    // The representation depends on Accept, so shared caches must key on it
+    static final class VariantResource extends FileSystemResource implements HttpResource {
+        VariantResource(ImageDerivatives.Variant variant) {
+            super(variant.path());
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.ecommerce.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Every product image under the images root - size, mtime, content type and content hash - keyed
+ * by its path relative to the root ("Electronics/iPhone 15 Pro/1.jpg"). Built once at startup,
+ * before the web server takes requests, and kept current by a WatchService, so serving an image or
+ * answering a 404 is a hash probe rather than a trip to the filesystem.
+ *
+ * <p>Hashed names ("1.a1b2c3d4e5.jpg") never change content, which is what lets them be cached
+ * as immutable; when files change, an {@link ImageFilesChangedEvent} follows (debounced) so the
+ * stored product URLs can be rewritten to the new names.
+ */
+@Slf4j
+@Component
+public class ProductImageIndex implements SmartLifecycle {
+    // Lifecycle phases start in ascending order; the embedded web server starts near Integer.MAX_VALUE
+    private static final int PHASE = 0;
+
+    private static final Set<String> EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "avif");
+    private static final int HASH_LENGTH = 10;
+    private static final Pattern HASHED_NAME = Pattern.compile("^(.*)\\.([0-9a-f]{" + HASH_LENGTH + "})(\\.[A-Za-z0-9]+)$");
+
+    private final Path root;
+    private final boolean watch;
+    private final long debounceMs;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<String, ImageFile> files = new ConcurrentHashMap<>();
+    // Full scans replace the map wholesale, so they and the watcher's updates take turns
+    private final Object updateLock = new Object();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private volatile boolean running;
+
+    // Editors and copies fire bursts of events; one notice goes out once the tree is quiet
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-index-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingNotice;
+
+    public ProductImageIndex(
+            @Value("${app.images.base-path:./Products}") String basePath,
+            @Value("${app.images.watch.enabled:true}") boolean watch,
+            @Value("${app.images.watch.debounce-ms:1000}") long debounceMs,
+            ApplicationEventPublisher eventPublisher) {
+        this.root = Paths.get(basePath).toAbsolutePath().normalize();
+        this.watch = watch;
+        this.debounceMs = debounceMs;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Before Tomcat accepts connections, and so also ahead of the URL rewrite that reads these hashes
+    @Override
+    public void start() {
+        scan();
+        if (watch && Files.isDirectory(root)) {
+            startWatching();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        shutdown();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Reads the whole tree again. Safe to call from any thread: watcher updates wait for it, and
+     * the events they were holding are applied on top of the fresh map afterwards.
+     */
+    public void scan() {
+        if (!Files.isDirectory(root)) {
+            log.warn("Images root {} does not exist; image URLs stay unhashed", root);
+            return;
+        }
+
+        synchronized (updateLock) {
+            long started = System.nanoTime();
+            try (Stream<Path> paths = Files.walk(root)) {
+                // Hashing is I/O plus SHA-256 per file, so it spreads well across cores
+                // A file that cannot be read is left out; the rest of the tree is still indexed
+                Map<String, ImageFile> scanned = paths.filter(Files::isRegularFile)
+                        .filter(ProductImageIndex::isImage)
+                        .collect(Collectors.toList())
+                        .parallelStream()
+                        .map(ProductImageIndex::read)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toConcurrentMap(file -> relative(file.path()), file -> file));
+                files = scanned;
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Could not scan product images under {}: {}", root, e.getMessage());
+                return;
+            }
+            log.info("Indexed {} product images in {} ms", files.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    public Optional<ImageFile> find(String relativePath) {
+        return Optional.ofNullable(files.get(relativePath));
+    }
+
+    public Optional<String> hash(String relativePath) {
+        return find(relativePath).map(ImageFile::hash);
+    }
+
+    /**
+     * The hashed file name of an image ("Fashion/Tee/1.jpg" gives "1.a1b2c3d4e5.jpg"), or empty
+     * for a file the index does not know.
+     */
+    public Optional<String> hashedName(String relativePath) {
+        String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        return hash(relativePath).map(hash -> fileName.substring(0, dot) + "." + hash + fileName.substring(dot));
+    }
+
+    /**
+     * Image paths grouped by the folder they sit in ("Electronics/iPhone 15 Pro" to its images),
+     * in file-name order with numbered names sorted by number (2.jpg before 10.jpg).
+     */
+    public Map<String, List<String>> byDirectory() {
+        Comparator<String> byFileName = Comparator.comparingLong(ProductImageIndex::leadingNumber)
+                .thenComparing(Comparator.naturalOrder());
+        return files.keySet().stream()
+                .filter(path -> path.indexOf('/') > 0)
+                .collect(Collectors.groupingBy(path -> path.substring(0, path.lastIndexOf('/')),
+                        Collectors.collectingAndThen(Collectors.toList(), paths -> {
+                            paths.sort(byFileName);
+                            return paths;
+                        })));
+    }
+
+    /**
+     * Splits a hashed path into the original path and the hash it carries, or empty when the
+     * name has no hash in it.
+     */
+    public static Optional<Hashed> parse(String path) {
+        Matcher matcher = HASHED_NAME.matcher(path);
+        if (!matcher.matches() || matcher.group(1).endsWith("/") || matcher.group(1).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Hashed(matcher.group(1) + matcher.group(3), matcher.group(2)));
+    }
+
+    public boolean isCurrent(Hashed hashed) {
+        return hash(hashed.path()).filter(hashed.hash()::equals).isPresent();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void startWatching() {
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            register(root);
+        } catch (IOException e) {
+            log.warn("Not watching {} for image changes: {}", root, e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(this::watchLoop, "image-index-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Watches are per directory, so every product folder gets its own registration
+    private void register(Path directory) throws IOException {
+        try (Stream<Path> directories = Files.walk(directory)) {
+            for (Path dir : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, dir);
+            }
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = watchedDirectories.get(key);
+            boolean changed = false;
+            synchronized (updateLock) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                        // Events were lost; only a full pass is sure to be right
+                        scan();
+                        changed = true;
+                    } else {
+                        changed |= apply(directory.resolve((Path) event.context()), event.kind());
+                    }
+                }
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+            if (changed) {
+                announce();
+            }
+        }
+    }
+
+    private boolean apply(Path path, WatchEvent.Kind<?> kind) {
+        String relative = relative(path);
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            // Could have been a single image or a whole product folder
+            String prefix = relative + "/";
+            return files.remove(relative) != null | files.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        try {
+            if (Files.isDirectory(path)) {
+                // A new folder may have arrived with its images already inside
+                register(path);
+                try (Stream<Path> paths = Files.walk(path)) {
+                    paths.filter(Files::isRegularFile).filter(ProductImageIndex::isImage)
+                            .map(ProductImageIndex::read)
+                            .filter(Objects::nonNull)
+                            .forEach(file -> files.put(relative(file.path()), file));
+                }
+                return true;
+            }
+            if (isImage(path) && Files.isRegularFile(path)) {
+                ImageFile file = read(path);
+                return file != null && !file.equals(files.put(relative, file));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // Usually a file still being written or already gone again; a later event settles it
+            log.debug("Could not index {}: {}", path, e.getMessage());
+        }
+        return false;
+    }
+
+    private synchronized void announce() {
+        if (pendingNotice != null) {
+            pendingNotice.cancel(false);
+        }
+        pendingNotice = notifier.schedule(() -> eventPublisher.publishEvent(new ImageFilesChangedEvent()),
+                debounceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private String relative(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    // Null for a file that cannot be read, usually one deleted or renamed since it was listed
+    private static ImageFile read(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new ImageFile(file, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    contentType(file.getFileName().toString()), hash(file));
+        } catch (IOException e) {
+            log.warn("Skipping image {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MediaType contentType(String fileName) {
+        return switch (extension(fileName)) {
+            case "jpg", "jpeg" -> MediaType.IMAGE_JPEG;
+            case "png" -> MediaType.IMAGE_PNG;
+            case "gif" -> MediaType.IMAGE_GIF;
+            case "webp" -> MediaType.parseMediaType("image/webp");
+            case "avif" -> MediaType.parseMediaType("image/avif");
+            default -> MediaType.APPLICATION_OCTET_STREAM;
+        };
+    }
+
+    // "10.jpg" -> 10; names without a leading number sort after numbered ones
+    private static long leadingNumber(String path) {
+        int start = path.lastIndexOf('/') + 1;
+        int end = start;
+        while (end < path.length() && end - start < 18 && Character.isDigit(path.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.parseLong(path.substring(start, end)) : Long.MAX_VALUE;
+    }
+
+    private static boolean isImage(Path path) {
+        return EXTENSIONS.contains(extension(path.getFileName().toString()));
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot + 1).toLowerCase() : "";
+    }
+
+    public record ImageFile(Path path, long size, long lastModified, MediaType contentType, String hash) {
+    }
+
+    // Original path relative to the images root, and the hash its name carried
+    public record Hashed(String path, String hash) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.model.Product;
+
+import java.util.List;
+
+// Writes one batch of validated products; called concurrently from the importer's workers
+@FunctionalInterface
+public interface BatchWriter {
+
+    /**
+     * @param now the import's start time, for updatedAt and similar stamps
+     * @return how many stored documents the batch changed
+     */
+    long write(List<Product> batch, long now);
+}
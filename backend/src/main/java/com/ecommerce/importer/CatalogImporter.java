@@ -0,0 +1,270 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Imports products from a stream in constant memory. One thread reads and validates records and
+ * cuts them into fixed-size batches; a small pool writes the batches as unordered bulk operations
+ * while the next ones are read. At most two batches per worker are in flight, so the reader
+ * blocks rather than buffering when Mongo is the bottleneck, and the heap holds a bounded number
+ * of products however large the file is.
+ *
+ * <p>Bulk writes bypass the mapping events, so the caches and indexes are told once, through
+ * RELOADED, when the import is done. Progress and throughput are published as
+ * catalog.import.* metrics while an import runs.
+ */
+@Slf4j
+@Component
+public class CatalogImporter {
+    private static final int MAX_ERRORS = 20;
+    private static final long LOG_EVERY = 100_000;
+
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final ExecutorService writers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter acceptedRecords;
+    private final Counter rejectedRecords;
+    private final Counter failedRecords;
+    private final Timer batchTimer;
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final AtomicLong recordsRead = new AtomicLong();
+    private volatile double recordsPerSecond;
+
+    public CatalogImporter(
+            Validator validator,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${app.import.batch-size:1000}") int batchSize,
+            @Value("${app.import.workers:4}") int workers) {
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, workers) * 2;
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.acceptedRecords = records(meterRegistry, "accepted");
+        this.rejectedRecords = records(meterRegistry, "rejected");
+        this.failedRecords = records(meterRegistry, "failed");
+        this.batchTimer = Timer.builder("catalog.import.batch")
+                .description("Time to write one bulk batch of imported products")
+                .register(meterRegistry);
+        Gauge.builder("catalog.import.in.flight.batches", inFlightBatches, AtomicInteger::get)
+                .description("Batches queued or being written")
+                .register(meterRegistry);
+        Gauge.builder("catalog.import.progress", recordsRead, AtomicLong::get)
+                .description("Records read by the running (or last) import")
+                .baseUnit("records")
+                .register(meterRegistry);
+        Gauge.builder("catalog.import.throughput", this, importer -> importer.recordsPerSecond)
+                .description("Records written per second by the running (or last) import")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates and writes every product the iterator yields. An iterator may throw
+     * {@link ProductJsonReader.InvalidRecordException} for a record it could not read; that
+     * record is rejected and the import carries on.
+     *
+     * @throws IllegalStateException if another import is running
+     */
+    public ImportResult importProducts(Iterator<Product> products, BatchWriter writer) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A catalog import is already running");
+        }
+        try {
+            return run(products, writer);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private ImportResult run(Iterator<Product> products, BatchWriter writer) {
+        long started = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Tally tally = new Tally();
+        Semaphore slots = new Semaphore(maxInFlight);
+        recordsRead.set(0);
+        recordsPerSecond = 0;
+
+        long read = 0;
+        List<Product> batch = new ArrayList<>(batchSize);
+        try {
+            while (products.hasNext()) {
+                Product product;
+                try {
+                    product = products.next();
+                } catch (ProductJsonReader.InvalidRecordException e) {
+                    recordsRead.set(++read);
+                    tally.reject(e.getMessage());
+                    rejectedRecords.increment();
+                    continue;
+                }
+                recordsRead.set(++read);
+
+                Set<ConstraintViolation<ImportRecord>> violations = validator.validate(new ImportRecord(product));
+                if (!violations.isEmpty()) {
+                    tally.reject("Record " + read + " (" + product.getId() + "): " + describe(violations));
+                    rejectedRecords.increment();
+                    continue;
+                }
+
+                batch.add(product);
+                if (batch.size() == batchSize) {
+                    submit(batch, writer, now, slots, tally, started);
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (read % LOG_EVERY == 0) {
+                    log.info("Catalog import: {} records read, {} written, {} rejected", read, tally.accepted.sum(), tally.rejected.sum());
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, writer, now, slots, tally, started);
+            }
+        } finally {
+            // Even when reading failed, the batches already handed out are written before returning
+            slots.acquireUninterruptibly(maxInFlight);
+            if (tally.changed.sum() > 0 || tally.uncounted) {
+                eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+            }
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        ImportResult result = new ImportResult(read, tally.accepted.sum(), tally.rejected.sum(), tally.failed.sum(),
+                tally.changed.sum(), durationMs, throughput(tally.accepted.sum(), started), tally.errors());
+        log.info("Catalog import finished in {} ms: {} read, {} written ({} changed), {} rejected, {} failed",
+                durationMs, result.getRead(), result.getAccepted(), result.getChanged(), result.getRejected(), result.getFailed());
+        return result;
+    }
+
+    // Blocks the reader while maxInFlight batches are queued or being written
+    private void submit(List<Product> batch, BatchWriter writer, long now, Semaphore slots, Tally tally, long started) {
+        slots.acquireUninterruptibly();
+        inFlightBatches.incrementAndGet();
+        try {
+            writers.execute(() -> {
+                try {
+                    long changed = batchTimer.record(() -> writer.write(batch, now));
+                    tally.changed.add(changed);
+                    tally.accepted.add(batch.size());
+                    acceptedRecords.increment(batch.size());
+                } catch (BulkOperationException e) {
+                    // Unordered: everything but the reported documents went through
+                    int failed = Math.min(e.getErrors().size(), batch.size());
+                    tally.uncounted = true;
+                    tally.accepted.add(batch.size() - failed);
+                    tally.failed.add(failed);
+                    acceptedRecords.increment(batch.size() - failed);
+                    failedRecords.increment(failed);
+                    e.getErrors().forEach(error -> tally.error("Write failed: " + error.getMessage()));
+                } catch (RuntimeException e) {
+                    log.warn("Catalog import batch of {} failed: {}", batch.size(), e.getMessage());
+                    tally.failed.add(batch.size());
+                    failedRecords.increment(batch.size());
+                    tally.error("Batch of " + batch.size() + " failed: " + e.getMessage());
+                } finally {
+                    recordsPerSecond = throughput(tally.accepted.sum(), started);
+                    inFlightBatches.decrementAndGet();
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightBatches.decrementAndGet();
+            slots.release();
+            throw e;
+        }
+    }
+
+    private static String describe(Set<ConstraintViolation<ImportRecord>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static double throughput(long records, long started) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return seconds > 0 ? records / seconds : 0;
+    }
+
+    private static Counter records(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("catalog.import.records")
+                .description("Imported product records by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Shared between the reader and the writers of one import
+    private static class Tally {
+        final LongAdder accepted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder changed = new LongAdder();
+        // A batch failed part way, so how much of it changed is unknown
+        volatile boolean uncounted;
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        void reject(String message) {
+            rejected.increment();
+            error(message);
+        }
+
+        void error(String message) {
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(message);
+                }
+            }
+        }
+
+        List<String> errors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+    }
+}
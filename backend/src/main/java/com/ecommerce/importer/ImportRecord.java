@@ -0,0 +1,47 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.validation.ValidImageUrl;
+import com.ecommerce.validation.ValidPrice;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.util.List;
+
+// The fields an imported product is checked on; Product itself carries no constraints
+class ImportRecord {
+    @NotBlank
+    private final String id;
+
+    @NotBlank
+    private final String name;
+
+    @NotBlank
+    private final String category;
+
+    @ValidPrice
+    private final double price;
+
+    @PositiveOrZero
+    private final int stock;
+
+    @DecimalMin("0")
+    @DecimalMax("5")
+    private final double rating;
+
+    // Site-relative paths (/products/...) are served from the images root, not fetched
+    private final List<@ValidImageUrl String> remoteImages;
+
+    ImportRecord(Product product) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.category = product.getCategory();
+        this.price = product.getPrice();
+        this.stock = product.getStock();
+        this.rating = product.getRating();
+        this.remoteImages = product.getImages() == null ? List.of()
+                : product.getImages().stream().filter(url -> url != null && !url.startsWith("/")).toList();
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.importer;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ImportResult {
+    long read;
+    long accepted;
+    long rejected;
+    long failed;
+    long changed;
+    long durationMs;
+    double recordsPerSecond;
+    // The first few rejections and write failures, enough to find a systematic problem in the file
+    List<String> errors;
+}
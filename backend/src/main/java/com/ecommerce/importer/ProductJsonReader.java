@@ -0,0 +1,105 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads products one at a time from a JSON array or from newline-delimited JSON, so only the
+ * record being read is ever held in memory. Records are MongoDB extended JSON as written by
+ * mongoexport ("_id", {"$numberLong": ...}) and go through the Mongo converter, which maps them
+ * exactly as a stored document would be.
+ *
+ * <p>A record that is valid JSON but not a product fails with {@link InvalidRecordException} and
+ * the reader carries on with the next one; broken JSON ends the stream with an
+ * {@link UncheckedIOException}, since there is no telling where the next record starts.
+ */
+public class ProductJsonReader implements Iterator<Product>, Closeable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser parser;
+    private final MongoConverter converter;
+    private JsonToken next;
+    private long position;
+
+    public ProductJsonReader(InputStream in, MongoConverter converter) throws IOException {
+        this.parser = MAPPER.createParser(in);
+        this.converter = converter;
+        this.next = parser.nextToken();
+        boolean array = next == JsonToken.START_ARRAY;
+        if (array) {
+            next = parser.nextToken();
+        }
+        if (next != null && next != JsonToken.START_OBJECT && !(array && next == JsonToken.END_ARRAY)) {
+            parser.close();
+            throw new IOException("Expected a JSON array of products or one product object per line");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next == JsonToken.START_OBJECT;
+    }
+
+    @Override
+    public Product next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        position++;
+        try {
+            JsonNode node = parser.readValueAsTree();
+            next = parser.nextToken();
+            if (next != null && next != JsonToken.START_OBJECT && next != JsonToken.END_ARRAY) {
+                throw new IOException("expected a product object, found " + next);
+            }
+            return convert(node);
+        } catch (IOException e) {
+            next = null;
+            throw new UncheckedIOException("Malformed JSON in record " + position, e);
+        }
+    }
+
+    // Number of records read so far, counting rejected ones
+    public long position() {
+        return position;
+    }
+
+    private Product convert(JsonNode node) {
+        try {
+            // Document.parse understands the extended JSON wrappers Jackson would choke on
+            Document document = Document.parse(node.toString());
+            Product product = converter.read(Product.class, document);
+            if (product.getId() == null) {
+                throw new InvalidRecordException(position, "no _id");
+            }
+            return product;
+        } catch (InvalidRecordException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new InvalidRecordException(position, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    public static class InvalidRecordException extends RuntimeException {
+        public InvalidRecordException(long position, String reason) {
+            super("Record " + position + ": " + reason);
+        }
+    }
+}
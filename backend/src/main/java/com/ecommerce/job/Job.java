@@ -0,0 +1,111 @@
+package com.ecommerce.job;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One background admin job. The task running it reports progress here; the status endpoint reads
+ * snapshots from any thread while it does.
+ */
+public class Job {
+    private static final int MAX_ERRORS = 20;
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String id;
+    private final String type;
+    private final long submittedAt = System.currentTimeMillis();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile long startedNanos;
+    private volatile long finishedAt;
+    private volatile String message;
+
+    Job(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    // Expected number of items, when known up front; progress is reported against it
+    public void setTotal(long total) {
+        this.total.set(total);
+    }
+
+    public void processed(long items) {
+        processed.addAndGet(items);
+    }
+
+    public void changed(long items) {
+        changed.addAndGet(items);
+    }
+
+    public void error(String error) {
+        errorCount.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        startedNanos = System.nanoTime();
+        state = State.RUNNING;
+    }
+
+    void finish(State state, String message) {
+        this.message = message;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = state;
+    }
+
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    public JobStatus status() {
+        long done = processed.get();
+        long expected = total.get();
+        double percent = state == State.SUCCEEDED ? 100
+                : expected > 0 ? Math.min(100, done * 100.0 / expected) : 0;
+        double seconds = state == State.QUEUED ? 0
+                : ((isFinished() ? finishedAt - startedAt : (System.nanoTime() - startedNanos) / 1_000_000)) / 1000.0;
+        List<String> firstErrors;
+        synchronized (errors) {
+            firstErrors = List.copyOf(errors);
+        }
+        return new JobStatus(id, type, state, expected, done, changed.get(),
+                Math.round(percent * 10) / 10.0, seconds > 0 ? done / seconds : 0,
+                state == State.QUEUED ? submittedAt : startedAt, isFinished() ? finishedAt : null,
+                message, errorCount.get(), firstErrors);
+    }
+}
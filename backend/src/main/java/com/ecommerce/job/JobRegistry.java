@@ -0,0 +1,99 @@
+package com.ecommerce.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs admin jobs in the background and keeps their status for polling. Submitting returns at
+ * once with the job's id; a job of a type that is already queued or running is not started twice,
+ * the caller gets the one in progress instead. Finished jobs are kept, newest first, up to
+ * app.jobs.history.
+ */
+@Slf4j
+@Component
+public class JobRegistry {
+    private final int history;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    public JobRegistry(
+            @Value("${app.jobs.workers:2}") int workers,
+            @Value("${app.jobs.history:50}") int history) {
+        this.history = history;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "admin-job-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized Job submit(String type, JobTask task) {
+        Optional<Job> active = jobs.values().stream()
+                .filter(job -> job.getType().equals(type) && !job.isFinished())
+                .findFirst();
+        if (active.isPresent()) {
+            return active.get();
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), type);
+        jobs.put(job.getId(), job);
+        prune();
+        workers.execute(() -> run(job, task));
+        return job;
+    }
+
+    public Optional<Job> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<JobStatus> recent() {
+        return jobs.values().stream()
+                .map(Job::status)
+                .sorted(Comparator.comparingLong(JobStatus::getStartedAt).reversed())
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(Job job, JobTask task) {
+        job.start();
+        log.info("Admin job {} ({}) started", job.getId(), job.getType());
+        try {
+            job.finish(Job.State.SUCCEEDED, task.run(job));
+        } catch (Exception e) {
+            log.warn("Admin job {} ({}) failed", job.getId(), job.getType(), e);
+            job.finish(Job.State.FAILED, e.getMessage());
+        }
+        JobStatus status = job.status();
+        log.info("Admin job {} ({}) {}: {} processed, {} changed, {} errors", job.getId(), job.getType(),
+                status.getState(), status.getProcessed(), status.getChanged(), status.getErrorCount());
+    }
+
+    // Drops the oldest finished jobs; queued and running ones always stay
+    private void prune() {
+        List<Job> finished = jobs.values().stream()
+                .filter(Job::isFinished)
+                .sorted(Comparator.comparingLong(Job::finishedAt))
+                .toList();
+        int excess = jobs.size() - history;
+        for (int i = 0; i < excess && i < finished.size(); i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+}
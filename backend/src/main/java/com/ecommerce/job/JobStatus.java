@@ -0,0 +1,24 @@
+package com.ecommerce.job;
+
+import lombok.Value;
+
+import java.util.List;
+
+// Point-in-time view of a job for the status endpoint
+@Value
+public class JobStatus {
+    String id;
+    String type;
+    Job.State state;
+    long total;
+    long processed;
+    long changed;
+    double percent;
+    double recordsPerSecond;
+    long startedAt;
+    Long finishedAt;
+    String message;
+    long errorCount;
+    // The first few errors; errorCount has them all
+    List<String> errors;
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.job;
+
+// The work behind an admin job; reports progress through the job and returns a one-line summary
+@FunctionalInterface
+public interface JobTask {
+    String run(Job job) throws Exception;
+}
@@ -4,7 +4,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -15,9 +19,28 @@ import java.util.Map;
 @AllArgsConstructor
 @Builder
 @Document(collection = "products")
+// One index per listing filter so every combination built by ProductQueryBuilder can use an IXSCAN
+@CompoundIndexes({
+    @CompoundIndex(name = "category_subcategory_price", def = "{'category': 1, 'subcategory': 1, 'price': 1}"),
+    @CompoundIndex(name = "subcategory_price", def = "{'subcategory': 1, 'price': 1}"),
+    @CompoundIndex(name = "brand_category", def = "{'brand': 1, 'category': 1}"),
+    @CompoundIndex(name = "price_rating", def = "{'price': 1, 'rating': -1}"),
+    @CompoundIndex(name = "rating_price", def = "{'rating': -1, 'price': 1}"),
+    @CompoundIndex(name = "stock_category", def = "{'stock': 1, 'category': 1}"),
+    @CompoundIndex(name = "onsale_price", def = "{'isOnSale': 1, 'price': 1}"),
+    @CompoundIndex(name = "new_created", def = "{'isNew': 1, 'createdAt': -1}"),
+    @CompoundIndex(name = "featured_rating", def = "{'isFeatured': 1, 'rating': -1}"),
+    // Keyset pagination seeks on (sort field, _id); either direction walks the same index
+    @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}"),
+    @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "rating_id", def = "{'rating': 1, '_id': 1}"),
+    @CompoundIndex(name = "created_id", def = "{'createdAt': 1, '_id': 1}"),
+    @CompoundIndex(name = "category_id", def = "{'category': 1, '_id': 1}")
+})
 public class Product {
     @Id
     private String id;
+    @Indexed
     private String name;
     private String brand;
     private double price;
@@ -31,6 +54,7 @@ public class Product {
     private int reviewCount;
     private Map<String, String> specs;
     private List<String> features;
+    @Indexed
     private String slug;
     private boolean isNew;
     private boolean isFeatured;
@@ -39,7 +63,11 @@ public class Product {
     private String size;
     private String material;
     private long createdAt;
+    @Indexed
     private long updatedAt;
+    // Hash of the seed data this product was last written from; null for products not owned by the seeder
+    @JsonIgnore
+    private String seedHash;
     
     // Manual getter methods (Lombok not working properly)
     public String getCategory() {
@@ -0,0 +1,305 @@
+package com.ecommerce.recommendation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item-to-item recommender over view, cart and order interactions. Two products co-occur when the
+ * same user interacted with both; each product keeps a sparse row of co-occurrence weights in an
+ * {@link IntFloatHashMap}, pruned to the strongest entries. A user's recommendations are the sum
+ * of the rows of their recent products, normalized by popularity so best-sellers don't win
+ * everywhere. Every interaction updates the rows incrementally, and the model is rebuilt
+ * from the {@link InteractionLog} at startup. Only the max-users most recently active users keep
+ * a history; the co-occurrence evidence of the others stays in the rows.
+ */
+@Slf4j
+@Component
+public class CoOccurrenceRecommender {
+    static final String CO_OCCURRENCE = "item-co-occurrence";
+    static final String POPULARITY = "popularity";
+
+    // Recent products remembered per user; older ones stop contributing
+    private static final int HISTORY_SIZE = 50;
+
+    // Evidence at which a pair's normalized score counts half
+    private static final float SHRINKAGE = 2f;
+
+    private final InteractionLog interactionLog;
+    private final int rowSize;
+    private final int maxUsers;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> itemIds = new HashMap<>();
+    private final List<String> items = new ArrayList<>();
+    private IntFloatHashMap[] rows = new IntFloatHashMap[64];
+    private float[] popularity = new float[64];
+    // Least recently active first; only changed under the write lock, so reads never reorder it
+    private final Map<String, History> histories = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, History> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    public CoOccurrenceRecommender(InteractionLog interactionLog,
+                                   @Value("${app.recommendations.row-size:100}") int rowSize,
+                                   @Value("${app.recommendations.max-users:100000}") int maxUsers) {
+        this.interactionLog = interactionLog;
+        this.rowSize = rowSize;
+        this.maxUsers = Math.max(1, maxUsers);
+    }
+
+    @PostConstruct
+    public void load() {
+        interactionLog.replay(this::apply);
+        log.info("Recommender loaded {} products and {} users", items.size(), histories.size());
+    }
+
+    public void record(Interaction interaction) {
+        if (interaction.getTimestamp() == 0) {
+            interaction.setTimestamp(System.currentTimeMillis());
+        }
+        interactionLog.append(interaction);
+        apply(interaction);
+    }
+
+    void apply(Interaction interaction) {
+        if (interaction.getUserId() == null || interaction.getProductId() == null || interaction.getType() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int item = itemId(interaction.getProductId());
+            float weight = interaction.getType().getWeight();
+            popularity[item] += weight;
+
+            // Re-inserted so the map's order tracks activity
+            History history = histories.remove(interaction.getUserId());
+            if (history == null) {
+                history = new History();
+            }
+            histories.put(interaction.getUserId(), history);
+            float previous = history.weightOf(item);
+            if (weight > previous) {
+                // A pair counts min(weight of either side) per user, so only the increase is new evidence
+                for (int i = 0; i < history.size; i++) {
+                    int other = history.items[i];
+                    if (other == item) {
+                        continue;
+                    }
+                    float otherWeight = history.weights[i];
+                    float delta = Math.min(weight, otherWeight) - Math.min(previous, otherWeight);
+                    if (delta > 0) {
+                        link(item, other, delta);
+                        link(other, item, delta);
+                    }
+                }
+            }
+            history.touch(item, Math.max(weight, previous));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Recommendation forUser(String userId, int limit) {
+        lock.readLock().lock();
+        try {
+            History history = histories.get(userId);
+            if (history == null || history.size == 0) {
+                return popular(limit, -1, "Popular with other shoppers");
+            }
+
+            IntFloatHashMap scores = new IntFloatHashMap(history.size * 16);
+            float[] evidence = new float[1];
+            for (int i = 0; i < history.size; i++) {
+                int item = history.items[i];
+                // Newer interactions count up to twice as much as the oldest remembered one
+                float recency = 1f + (float) i / Math.max(1, history.size - 1);
+                float userWeight = history.weights[i] * recency;
+                IntFloatHashMap row = rows[item];
+                if (row == null) {
+                    continue;
+                }
+                row.forEach((other, weight) -> {
+                    if (history.weightOf(other) == 0) {
+                        scores.addTo(other, userWeight * normalized(item, other, weight));
+                        evidence[0] += weight;
+                    }
+                });
+            }
+
+            int[] top = top(scores, limit, -1);
+            if (top.length == 0) {
+                return popular(limit, -1, "Popular with other shoppers");
+            }
+            return new Recommendation(ids(top), "Based on products you viewed, added to cart or bought",
+                    confidence(evidence[0]), CO_OCCURRENCE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Recommendation forProduct(String productId, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer item = itemIds.get(productId);
+            IntFloatHashMap row = item != null ? rows[item] : null;
+            if (row == null || row.size() == 0) {
+                return popular(limit, item != null ? item : -1, "Popular with other shoppers");
+            }
+
+            IntFloatHashMap scores = new IntFloatHashMap(row.size());
+            float[] evidence = new float[1];
+            row.forEach((other, weight) -> {
+                scores.addTo(other, normalized(item, other, weight));
+                evidence[0] += weight;
+            });
+            return new Recommendation(ids(top(scores, limit, item)), "Customers who viewed this also viewed",
+                    confidence(evidence[0]), CO_OCCURRENCE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Recommendation trending(int limit) {
+        lock.readLock().lock();
+        try {
+            return popular(limit, -1, "Trending across the store");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Recommendation popular(int limit, int exclude, String reason) {
+        IntFloatHashMap scores = new IntFloatHashMap(items.size());
+        float total = 0;
+        for (int item = 0; item < items.size(); item++) {
+            if (popularity[item] > 0) {
+                scores.addTo(item, popularity[item]);
+                total += popularity[item];
+            }
+        }
+        return new Recommendation(ids(top(scores, limit, exclude)), reason, confidence(total), POPULARITY);
+    }
+
+    // Cosine-style normalization (co-occurrence relative to how popular both products are anyway),
+    // shrunk towards zero for pairs backed by only a little evidence
+    private float normalized(int item, int other, float weight) {
+        float cosine = weight / (float) Math.sqrt(popularity[item] * popularity[other]);
+        return cosine * weight / (weight + SHRINKAGE);
+    }
+
+    // Saturates towards 1 as the supporting interaction weight grows
+    private static double confidence(float evidence) {
+        return Math.round(evidence / (evidence + 10.0) * 100) / 100.0;
+    }
+
+    private void link(int from, int to, float delta) {
+        IntFloatHashMap row = rows[from];
+        if (row == null) {
+            row = new IntFloatHashMap();
+            rows[from] = row;
+        }
+        row.addTo(to, delta);
+        // Pruning in batches keeps it amortized instead of on every insert
+        if (row.size() > rowSize * 2) {
+            row.retainTop(rowSize);
+        }
+    }
+
+    private int itemId(String productId) {
+        Integer id = itemIds.get(productId);
+        if (id != null) {
+            return id;
+        }
+        id = items.size();
+        itemIds.put(productId, id);
+        items.add(productId);
+        if (id == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+            popularity = Arrays.copyOf(popularity, popularity.length * 2);
+        }
+        return id;
+    }
+
+    private List<String> ids(int[] top) {
+        List<String> ids = new ArrayList<>(top.length);
+        for (int item : top) {
+            ids.add(items.get(item));
+        }
+        return ids;
+    }
+
+    // Highest "limit" scores, best first; limit is small, so a sorted insertion array is enough
+    private static int[] top(IntFloatHashMap scores, int limit, int exclude) {
+        int[] best = new int[limit];
+        float[] bestScores = new float[limit];
+        int[] size = new int[1];
+        scores.forEach((item, score) -> {
+            if (item == exclude || limit == 0 || (size[0] == limit && score <= bestScores[limit - 1])) {
+                return;
+            }
+            int at = size[0] < limit ? size[0]++ : limit - 1;
+            while (at > 0 && bestScores[at - 1] < score) {
+                best[at] = best[at - 1];
+                bestScores[at] = bestScores[at - 1];
+                at--;
+            }
+            best[at] = item;
+            bestScores[at] = score;
+        });
+        return Arrays.copyOf(best, size[0]);
+    }
+
+    // A user's most recent products with the strongest interaction seen for each, oldest first
+    private static final class History {
+        final int[] items = new int[HISTORY_SIZE];
+        final float[] weights = new float[HISTORY_SIZE];
+        int size;
+
+        float weightOf(int item) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == item) {
+                    return weights[i];
+                }
+            }
+            return 0f;
+        }
+
+        // Moves the product to the most recent position, dropping the oldest when full
+        void touch(int item, float weight) {
+            int at = -1;
+            for (int i = 0; i < size; i++) {
+                if (items[i] == item) {
+                    at = i;
+                    break;
+                }
+            }
+            if (at < 0) {
+                if (size == HISTORY_SIZE) {
+                    at = 0;
+                } else {
+                    items[size] = item;
+                    weights[size] = weight;
+                    size++;
+                    return;
+                }
+            }
+            System.arraycopy(items, at + 1, items, at, size - at - 1);
+            System.arraycopy(weights, at + 1, weights, at, size - at - 1);
+            items[size - 1] = item;
+            weights[size - 1] = weight;
+        }
+    }
+}
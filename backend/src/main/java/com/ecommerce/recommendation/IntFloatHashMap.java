@@ -0,0 +1,138 @@
+package com.ecommerce.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int -> float map with linear probing. Keys must be non-negative (-1 marks a
+ * free slot). Avoids the boxing and per-entry objects of a HashMap, which matters when every
+ * product keeps a row of co-occurrence weights.
+ */
+final class IntFloatHashMap {
+    private static final int FREE = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private float[] values;
+    private int size;
+
+    IntFloatHashMap() {
+        this(8);
+    }
+
+    IntFloatHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    float get(int key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : 0f;
+    }
+
+    void addTo(int key, float delta) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    void forEach(Consumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Keeps only the "keep" largest values; the rest of the row is noise that costs memory
+    void retainTop(int keep) {
+        if (size <= keep) {
+            return;
+        }
+        float[] sorted = new float[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                sorted[n++] = values[slot];
+            }
+        }
+        Arrays.sort(sorted);
+        float threshold = sorted[size - keep];
+
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        keys = new int[oldKeys.length];
+        values = new float[oldValues.length];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        // Strictly larger values first, then ties at the threshold until the row is full
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE && oldValues[slot] > threshold) {
+                addTo(oldKeys[slot], oldValues[slot]);
+            }
+        }
+        for (int slot = 0; slot < oldKeys.length && size < keep; slot++) {
+            if (oldKeys[slot] != FREE && oldValues[slot] == threshold) {
+                addTo(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                addTo(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    // Spreads sequential ids over the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    interface Consumer {
+        void accept(int key, float value);
+    }
+}
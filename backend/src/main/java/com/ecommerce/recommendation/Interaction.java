@@ -0,0 +1,16 @@
+package com.ecommerce.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One line of the interaction log and the body of POST /api/recommendations/events
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Interaction {
+    private String userId;
+    private String productId;
+    private InteractionType type;
+    private long timestamp;
+}
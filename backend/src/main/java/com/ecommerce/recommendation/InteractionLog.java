@@ -0,0 +1,125 @@
+package com.ecommerce.recommendation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append-only NDJSON file of interactions. It is the recommender's only persistence: the model
+ * is rebuilt by replaying it at startup, so everything runs in-process without external services.
+ *
+ * <p>Once the file reaches max-bytes it is rolled over to "{path}.1", replacing the previous one,
+ * so the log and the replay at startup stay bounded to the most recent 1-2 x max-bytes of
+ * interactions.
+ */
+@Slf4j
+@Component
+public class InteractionLog {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+    private final Path rolled;
+    private final long maxBytes;
+    private BufferedWriter writer;
+    private long size;
+
+    public InteractionLog(@Value("${app.recommendations.log-path:data/interactions.ndjson}") String path,
+                          @Value("${app.recommendations.log-max-bytes:67108864}") long maxBytes) {
+        this.path = Path.of(path);
+        this.rolled = Path.of(path + ".1");
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void append(Interaction interaction) {
+        try {
+            String line = MAPPER.writeValueAsString(interaction);
+            long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (writer == null) {
+                open();
+            }
+            if (maxBytes > 0 && size > 0 && size + bytes > maxBytes) {
+                rollOver();
+            }
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+            size += bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + path, e);
+        }
+    }
+
+    // The rolled-over file first, so interactions replay oldest first
+    public void replay(Consumer<Interaction> consumer) {
+        replay(rolled, consumer);
+        replay(path, consumer);
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(path);
+    }
+
+    private void rollOver() throws IOException {
+        writer.close();
+        writer = null;
+        Files.move(path, rolled, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Rolled {} over to {} at {} bytes", path, rolled, size);
+        open();
+    }
+
+    // Malformed lines (e.g. a torn last write) are skipped, not fatal
+    private static void replay(Path path, Consumer<Interaction> consumer) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    consumer.accept(MAPPER.readValue(line, Interaction.class));
+                } catch (IOException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay " + path, e);
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} malformed lines in {}", skipped, path);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", path, e);
+            }
+            writer = null;
+        }
+    }
+}
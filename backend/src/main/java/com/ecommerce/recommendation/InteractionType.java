@@ -0,0 +1,18 @@
+package com.ecommerce.recommendation;
+
+// How strongly an interaction says "this user wants this product"
+public enum InteractionType {
+    VIEW(1f),
+    CART(3f),
+    ORDER(5f);
+
+    private final float weight;
+
+    InteractionType(float weight) {
+        this.weight = weight;
+    }
+
+    public float getWeight() {
+        return weight;
+    }
+}
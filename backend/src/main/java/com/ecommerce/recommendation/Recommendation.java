@@ -0,0 +1,14 @@
+package com.ecommerce.recommendation;
+
+import lombok.Value;
+
+import java.util.List;
+
+// Ranked product ids plus how they were produced; the controller turns the ids into cards
+@Value
+public class Recommendation {
+    List<String> productIds;
+    String reason;
+    double confidence;
+    String algorithm;
+}
@@ -0,0 +1,541 @@
+package com.ecommerce.recommendation;
+
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.search.Tokenizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Precomputed "related products": for every product the top-N most similar products of the same
+ * category, scored on shared subcategory and brand, price band, spec overlap (Jaccard) and TF-IDF
+ * cosine over name and description. Results are stored as an int-row adjacency table, so a lookup
+ * is an array read.
+ *
+ * Work happens on a background thread. A write scores only the written product against its
+ * category, offers it to the other products' lists, and refills the few lists it dropped out of
+ * from a full one - so a save costs O(bucket), not O(bucket²). Document frequencies are kept
+ * current, but untouched products keep the TF-IDF vectors they were last scored with until the
+ * next full rebuild (RELOADED or restart).
+ */
+@Slf4j
+@Component
+public class RelatedProductsIndex {
+
+    private static final double SUBCATEGORY_WEIGHT = 3.0;
+    private static final double BRAND_WEIGHT = 1.5;
+    private static final double PRICE_WEIGHT = 1.5;
+    private static final double SPEC_WEIGHT = 1.0;
+    private static final double TEXT_WEIGHT = 2.5;
+    // Prices further apart than this factor get no price-band credit
+    private static final double PRICE_BAND = Math.log(2);
+
+    private final MongoTemplate mongoTemplate;
+    private final int topN;
+    private final long debounceMillis;
+
+    // Scoring state, only touched while holding "this"
+    private final Map<String, Item> items = new HashMap<>();
+    private final Map<String, Set<Item>> buckets = new HashMap<>();
+    private final Map<String, Integer> termCodes = new HashMap<>();
+    private final Map<String, Integer> specCodes = new HashMap<>();
+    private final Map<Integer, Integer> documentFrequency = new HashMap<>();
+    private final List<Integer> freeRows = new ArrayList<>();
+    private int nextRow;
+
+    // Writes queued for the worker, guarded by their own lock so writers never wait on a scoring pass
+    private final Object pendingLock = new Object();
+    private final Map<String, Product> pendingSaves = new LinkedHashMap<>();
+    private final Set<String> pendingDeletes = new HashSet<>();
+    // Set by RELOADED; later saves and deletes cannot downgrade it, the rebuild covers them anyway
+    private boolean pendingRebuild;
+
+    // What readers see: replaced wholesale after every change
+    private volatile Table table = Table.EMPTY;
+    private volatile boolean loaded;
+    private final AtomicBoolean initialBuild = new AtomicBoolean();
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "related-products");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingUpdate;
+
+    public RelatedProductsIndex(MongoTemplate mongoTemplate,
+                                @Value("${app.related.top-n:12}") int topN,
+                                @Value("${app.related.debounce-ms:500}") long debounceMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.topN = topN;
+        this.debounceMillis = debounceMillis;
+    }
+
+    // Scoring the whole catalog takes a while, so it must not hold up startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuild() {
+        if (initialBuild.compareAndSet(false, true)) {
+            worker.execute(this::rebuildQuietly);
+        }
+    }
+
+    // The first build from a restored catalog snapshot instead of Mongo
+    public void scheduleRebuild(Iterable<Product> products) {
+        if (initialBuild.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                try {
+                    rebuild(products);
+                } catch (RuntimeException e) {
+                    log.warn("Related products rebuild from the catalog snapshot failed", e);
+                    rebuildQuietly();
+                }
+            });
+        }
+    }
+
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().exclude("features", "color", "size", "material").slice("images", 1);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            rebuild(products::iterator);
+        }
+    }
+
+    public synchronized void rebuild(Iterable<Product> products) {
+        items.clear();
+        buckets.clear();
+        termCodes.clear();
+        specCodes.clear();
+        documentFrequency.clear();
+        freeRows.clear();
+        nextRow = 0;
+
+        for (Product product : products) {
+            add(product);
+        }
+        for (Item item : items.values()) {
+            vectorize(item);
+        }
+        for (Set<Item> bucket : buckets.values()) {
+            for (Item item : bucket) {
+                score(item, bucket);
+            }
+        }
+        publish();
+        loaded = true;
+        log.info("Related products computed for {} products", items.size());
+
+        // Writes queued while this build ran; a save it already read is applied once more, harmlessly
+        synchronized (pendingLock) {
+            if (pendingRebuild || !pendingSaves.isEmpty() || !pendingDeletes.isEmpty()) {
+                schedulePending();
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // Until the first build is scheduled it will read the current catalog, so there is nothing to catch up on
+        if (!loaded && !initialBuild.get()) {
+            return;
+        }
+
+        synchronized (pendingLock) {
+            switch (event.getType()) {
+                case RELOADED -> {
+                    pendingRebuild = true;
+                    pendingSaves.clear();
+                    pendingDeletes.clear();
+                }
+                case SAVED -> {
+                    if (!pendingRebuild) {
+                        pendingDeletes.remove(event.getProductId());
+                        pendingSaves.put(event.getProductId(), event.getProduct());
+                    }
+                }
+                case DELETED -> {
+                    if (!pendingRebuild) {
+                        pendingSaves.remove(event.getProductId());
+                        pendingDeletes.add(event.getProductId());
+                    }
+                }
+            }
+            // While the first build runs the queue is held; it is drained once that build is published
+            if (loaded) {
+                schedulePending();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Empty when the product is unknown to the index
+    public Optional<List<ProductCard>> related(String productId, int limit) {
+        Table current = table;
+        Integer row = current.rows.get(productId);
+        if (row == null) {
+            return Optional.empty();
+        }
+        int[] neighbours = current.related[row];
+        List<ProductCard> cards = new ArrayList<>(Math.min(limit, neighbours.length));
+        for (int i = 0; i < neighbours.length && cards.size() < limit; i++) {
+            cards.add(current.cards[neighbours[i]]);
+        }
+        return Optional.of(cards);
+    }
+
+    public synchronized void update(Product product) {
+        apply(List.of(), List.of(product));
+    }
+
+    public synchronized void remove(String productId) {
+        apply(List.of(productId), List.of());
+    }
+
+    // A burst of writes collapses into one pass once it settles; callers hold pendingLock
+    private void schedulePending() {
+        if (pendingUpdate != null) {
+            pendingUpdate.cancel(false);
+        }
+        pendingUpdate = worker.schedule(this::applyPending, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void applyPending() {
+        boolean rebuild;
+        List<String> deletes;
+        List<Product> saves;
+        synchronized (pendingLock) {
+            rebuild = pendingRebuild;
+            deletes = new ArrayList<>(pendingDeletes);
+            saves = new ArrayList<>(pendingSaves.values());
+            pendingRebuild = false;
+            pendingDeletes.clear();
+            pendingSaves.clear();
+        }
+
+        if (rebuild) {
+            rebuildQuietly();
+            return;
+        }
+        synchronized (this) {
+            apply(deletes, saves);
+        }
+    }
+
+    private void apply(List<String> deletes, List<Product> saves) {
+        // Lists that lost an entry while full, so another bucket member may now belong in them
+        Set<Item> refill = new HashSet<>();
+        Set<Item> added = new LinkedHashSet<>();
+        for (String productId : deletes) {
+            removeItem(productId, refill);
+        }
+        for (Product product : saves) {
+            removeItem(product.getId(), refill);
+            added.add(add(product));
+        }
+
+        for (Item item : added) {
+            vectorize(item);
+        }
+        for (Item item : added) {
+            Set<Item> bucket = buckets.get(item.bucket);
+            score(item, bucket);
+            for (Item other : bucket) {
+                // Products added in this pass are scored against the whole bucket already
+                if (!added.contains(other)) {
+                    offer(other, item, similarity(other, item));
+                }
+            }
+        }
+        for (Item item : refill) {
+            // Skip items deleted or re-added later in the same pass
+            if (items.get(item.id) == item) {
+                score(item, buckets.get(item.bucket));
+            }
+        }
+        publish();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Related products rebuild failed", e);
+        }
+    }
+
+    private Item add(Product product) {
+        Item item = new Item();
+        item.row = freeRows.isEmpty() ? nextRow++ : freeRows.remove(freeRows.size() - 1);
+        item.id = product.getId();
+        item.card = ProductCard.of(product);
+        item.subcategory = product.getSubcategory();
+        item.brand = product.getBrand();
+        item.price = product.getPrice();
+        item.specs = specs(product.getSpecs());
+        item.termCounts = termCounts(product.getName() + " " + (product.getDescription() != null ? product.getDescription() : ""));
+        for (Integer term : item.termCounts.keySet()) {
+            documentFrequency.merge(term, 1, Integer::sum);
+        }
+
+        item.bucket = bucketKey(product);
+        items.put(item.id, item);
+        buckets.computeIfAbsent(item.bucket, key -> new HashSet<>()).add(item);
+        return item;
+    }
+
+    // The product's row is taken out of every list in its bucket before anything can reuse it
+    private void removeItem(String productId, Set<Item> refill) {
+        Item item = items.remove(productId);
+        if (item == null) {
+            return;
+        }
+        for (Integer term : item.termCounts.keySet()) {
+            documentFrequency.computeIfPresent(term, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        Set<Item> bucket = buckets.get(item.bucket);
+        if (bucket != null) {
+            bucket.remove(item);
+            if (bucket.isEmpty()) {
+                buckets.remove(item.bucket);
+            }
+            for (Item other : bucket) {
+                if (drop(other, item.row)) {
+                    refill.add(other);
+                }
+            }
+        }
+        freeRows.add(item.row);
+    }
+
+    // Scores one product against the rest of its category and keeps its best topN
+    private void score(Item item, Set<Item> bucket) {
+        int[] bestRows = new int[topN];
+        double[] bestScores = new double[topN];
+        int size = 0;
+        for (Item other : bucket) {
+            if (other == item) {
+                continue;
+            }
+            double score = similarity(item, other);
+            if (score <= 0 || (size == topN && score <= bestScores[size - 1])) {
+                continue;
+            }
+            // Insertion into a small sorted array beats a heap at this size
+            int at = size < topN ? size++ : topN - 1;
+            while (at > 0 && bestScores[at - 1] < score) {
+                bestScores[at] = bestScores[at - 1];
+                bestRows[at] = bestRows[at - 1];
+                at--;
+            }
+            bestScores[at] = score;
+            bestRows[at] = other.row;
+        }
+        item.related = Arrays.copyOf(bestRows, size);
+        item.scores = Arrays.copyOf(bestScores, size);
+    }
+
+    // Lists are copied rather than changed in place, since the published table shares them
+    private void offer(Item item, Item candidate, double score) {
+        int size = item.related.length;
+        if (topN == 0 || score <= 0 || (size == topN && score <= item.scores[size - 1])) {
+            return;
+        }
+        int[] rows = Arrays.copyOf(item.related, Math.min(size + 1, topN));
+        double[] scores = Arrays.copyOf(item.scores, rows.length);
+        int at = rows.length - 1;
+        while (at > 0 && scores[at - 1] < score) {
+            scores[at] = scores[at - 1];
+            rows[at] = rows[at - 1];
+            at--;
+        }
+        scores[at] = score;
+        rows[at] = candidate.row;
+        item.related = rows;
+        item.scores = scores;
+    }
+
+    // True when the row was in a full list, which then has to be refilled from the whole bucket
+    private boolean drop(Item item, int row) {
+        int size = item.related.length;
+        for (int at = 0; at < size; at++) {
+            if (item.related[at] == row) {
+                int[] rows = new int[size - 1];
+                double[] scores = new double[size - 1];
+                System.arraycopy(item.related, 0, rows, 0, at);
+                System.arraycopy(item.related, at + 1, rows, at, size - at - 1);
+                System.arraycopy(item.scores, 0, scores, 0, at);
+                System.arraycopy(item.scores, at + 1, scores, at, size - at - 1);
+                item.related = rows;
+                item.scores = scores;
+                return size == topN;
+            }
+        }
+        return false;
+    }
+
+    private double similarity(Item a, Item b) {
+        double score = 0;
+        if (a.subcategory != null && a.subcategory.equals(b.subcategory)) {
+            score += SUBCATEGORY_WEIGHT;
+        }
+        if (a.brand != null && a.brand.equals(b.brand)) {
+            score += BRAND_WEIGHT;
+        }
+        if (a.price > 0 && b.price > 0) {
+            double distance = Math.abs(Math.log(a.price / b.price));
+            score += PRICE_WEIGHT * Math.max(0, 1 - distance / PRICE_BAND);
+        }
+        score += SPEC_WEIGHT * jaccard(a.specs, b.specs);
+        score += TEXT_WEIGHT * cosine(a, b);
+        return score;
+    }
+
+    private static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    // Both vectors are L2-normalized and sorted by term code, so cosine is a merge of the two
+    private static double cosine(Item a, Item b) {
+        int i = 0;
+        int j = 0;
+        double dot = 0;
+        while (i < a.terms.length && j < b.terms.length) {
+            if (a.terms[i] == b.terms[j]) {
+                dot += a.weights[i++] * b.weights[j++];
+            } else if (a.terms[i] < b.terms[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dot;
+    }
+
+    private void vectorize(Item item) {
+        int[] terms = item.termCounts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        float[] weights = new float[terms.length];
+        double norm = 0;
+        for (int i = 0; i < terms.length; i++) {
+            int df = documentFrequency.getOrDefault(terms[i], 1);
+            double tf = 1 + Math.log(item.termCounts.get(terms[i]));
+            double weight = tf * Math.log(1 + (double) items.size() / df);
+            weights[i] = (float) weight;
+            norm += weight * weight;
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] /= (float) norm;
+            }
+        }
+        item.terms = terms;
+        item.weights = weights;
+    }
+
+    private Map<Integer, Integer> termCounts(String text) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (String token : Tokenizer.tokenize(text)) {
+            counts.merge(termCodes.computeIfAbsent(token, key -> termCodes.size()), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private int[] specs(Map<String, String> specs) {
+        if (specs == null || specs.isEmpty()) {
+            return new int[0];
+        }
+        return specs.entrySet().stream()
+                .map(entry -> Tokenizer.normalize(entry.getKey() + "=" + entry.getValue()))
+                .mapToInt(spec -> specCodes.computeIfAbsent(spec, key -> specCodes.size()))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private void publish() {
+        int rows = nextRow;
+        ProductCard[] cards = new ProductCard[rows];
+        int[][] related = new int[rows][];
+        Map<String, Integer> rowById = new HashMap<>(items.size() * 2);
+        for (Item item : items.values()) {
+            cards[item.row] = item.card;
+            related[item.row] = item.related;
+            rowById.put(item.id, item.row);
+        }
+        table = new Table(Collections.unmodifiableMap(rowById), cards, related);
+    }
+
+    private static String bucketKey(Product product) {
+        return String.valueOf(product.getCategory());
+    }
+
+    private static final class Item {
+        int row;
+        String id;
+        String bucket;
+        ProductCard card;
+        String subcategory;
+        String brand;
+        double price;
+        int[] specs;
+        Map<Integer, Integer> termCounts;
+        int[] terms;
+        float[] weights;
+        // Rows of the best topN, best first, with their scores
+        int[] related = new int[0];
+        double[] scores = new double[0];
+    }
+
+    private record Table(Map<String, Integer> rows, ProductCard[] cards, int[][] related) {
+        static final Table EMPTY = new Table(Map.of(), new ProductCard[0], new int[0][]);
+    }
+}
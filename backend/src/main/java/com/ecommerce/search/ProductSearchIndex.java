@@ -0,0 +1,549 @@
+package com.ecommerce.search;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tokenized inverted index over name, brand, category, description, features and spec values,
+ * ranked with BM25. Postings are primitive arrays keyed by an int document number; updates
+ * tombstone the old document and the postings are compacted once enough of them pile up.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Per-field weights: a term in the name counts three times as much as one in the description
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float FEATURE_WEIGHT = 1.2f;
+    private static final float TEXT_WEIGHT = 1.0f;
+
+    // Score accumulators kept between queries; more concurrent queries than this allocate their own
+    private static final int POOLED_SCRATCH = 4;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    private volatile boolean loaded;
+    // Writes made while a rebuild reads the catalog, replayed onto the fresh index before the swap
+    private List<Consumer<IndexData>> missed;
+    private final Object rebuildLock = new Object();
+
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(POOLED_SCRATCH);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("name", "brand", "category", "subcategory", "description", "features", "specs");
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            rebuild(products::iterator);
+        }
+    }
+
+    public void rebuild(Iterable<Product> products) {
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                missed = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            IndexData fresh = new IndexData();
+            boolean built = false;
+            try {
+                for (Product product : products) {
+                    fresh.add(product);
+                }
+                built = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (built) {
+                        missed.forEach(change -> change.accept(fresh));
+                        data = fresh;
+                        loaded = true;
+                    }
+                    missed = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    @EventListener
+    @Order(ProductChangedEvent.INDEX_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case RELOADED -> {
+                // Before the first load there is nothing to refresh; load() reads the current catalog
+                if (isTracking()) {
+                    rebuild();
+                }
+            }
+            case SAVED -> {
+                Product product = event.getProduct();
+                applyIfTracking(index -> {
+                    index.remove(product.getId());
+                    index.add(product);
+                });
+            }
+            case DELETED -> {
+                String productId = event.getProductId();
+                applyIfTracking(index -> index.remove(productId));
+            }
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            data.remove(product.getId());
+            data.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            data.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isTracking() {
+        lock.readLock().lock();
+        try {
+            return loaded || missed != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Skipped before the first load unless a rebuild is reading the catalog, which needs to hear of it
+    private void applyIfTracking(Consumer<IndexData> change) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded && missed == null) {
+                return;
+            }
+            change.accept(data);
+            if (missed != null) {
+                missed.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best "limit" product ids ranked by BM25, best first, and how many documents matched in
+     * total. Documents containing every known query term are preferred; if there are none the
+     * query falls back to matching any term.
+     */
+    public Hits search(String text, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(text)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Hits.NONE;
+        }
+
+        Scratch scratch = scratchPool.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        lock.readLock().lock();
+        try {
+            return data.search(terms, limit, scratch);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    /**
+     * Ranked ids cut off at the search limit; total counts every match, so a total above
+     * ids().size() means the lower-ranked matches were left out.
+     */
+    public record Hits(List<String> ids, int total) {
+        static final Hits NONE = new Hits(List.of(), 0);
+
+        public boolean isEmpty() {
+            return ids.isEmpty();
+        }
+
+        public boolean isTruncated() {
+            return total > ids.size();
+        }
+    }
+
+    private static final class IndexData {
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private int[][] postingDocs = new int[256][];
+        private float[][] postingFreqs = new float[256][];
+        private int[] postingSize = new int[256];
+        private int[] documentFrequency = new int[256];
+        private int termCount;
+
+        private final Map<String, Integer> docByProduct = new HashMap<>();
+        private String[] productIds = new String[256];
+        private float[] docLength = new float[256];
+        private int[][] docTerms = new int[256][];
+        private final BitSet deleted = new BitSet();
+        private int docCount;
+        private int deletedCount;
+        private int liveDocs;
+        private double totalLength;
+
+        void add(Product product) {
+            Map<String, Float> frequencies = new HashMap<>();
+            float length = addField(frequencies, product.getName(), NAME_WEIGHT);
+            length += addField(frequencies, product.getBrand(), BRAND_WEIGHT);
+            length += addField(frequencies, product.getCategory(), CATEGORY_WEIGHT);
+            length += addField(frequencies, product.getSubcategory(), CATEGORY_WEIGHT);
+            length += addField(frequencies, product.getDescription(), TEXT_WEIGHT);
+            if (product.getFeatures() != null) {
+                for (String feature : product.getFeatures()) {
+                    length += addField(frequencies, feature, FEATURE_WEIGHT);
+                }
+            }
+            if (product.getSpecs() != null) {
+                for (String value : product.getSpecs().values()) {
+                    length += addField(frequencies, value, TEXT_WEIGHT);
+                }
+            }
+
+            int doc = docCount++;
+            ensureDocCapacity(docCount);
+            productIds[doc] = product.getId();
+            docLength[doc] = length;
+
+            int[] terms = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                int term = termId(entry.getKey());
+                appendPosting(term, doc, entry.getValue());
+                documentFrequency[term]++;
+                terms[i++] = term;
+            }
+            docTerms[doc] = terms;
+            docByProduct.put(product.getId(), doc);
+            liveDocs++;
+            totalLength += length;
+        }
+
+        void remove(String productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+
+            for (int term : docTerms[doc]) {
+                documentFrequency[term]--;
+            }
+            deleted.set(doc);
+            deletedCount++;
+            liveDocs--;
+            totalLength -= docLength[doc];
+            docTerms[doc] = null;
+            productIds[doc] = null;
+
+            if (deletedCount > Math.max(1024, docCount / 4)) {
+                compact();
+            }
+        }
+
+        Hits search(List<String> terms, int limit, Scratch scratch) {
+            if (liveDocs == 0) {
+                return Hits.NONE;
+            }
+            scratch.ensureCapacity(docCount);
+            float[] scores = scratch.scores;
+            int[] matched = scratch.matched;
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+            int knownTerms = 0;
+            float averageLength = (float) (totalLength / liveDocs);
+
+            for (String token : terms) {
+                Integer term = termIds.get(token);
+                if (term == null || documentFrequency[term] == 0) {
+                    continue;
+                }
+                knownTerms++;
+                int df = documentFrequency[term];
+                float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+
+                int[] docs = postingDocs[term];
+                float[] freqs = postingFreqs[term];
+                for (int i = 0; i < postingSize[term]; i++) {
+                    int doc = docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    float tf = freqs[i];
+                    float norm = K1 * (1 - B + B * docLength[doc] / averageLength);
+                    if (matched[doc] == 0) {
+                        touched[touchedCount++] = doc;
+                    }
+                    matched[doc]++;
+                    scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            boolean anyMatchesAll = false;
+            for (int i = 0; i < touchedCount && !anyMatchesAll; i++) {
+                anyMatchesAll = matched[touched[i]] == knownTerms;
+            }
+            int required = anyMatchesAll ? knownTerms : 1;
+
+            TopK top = new TopK(limit);
+            int total = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (matched[doc] >= required) {
+                    top.offer(doc, scores[doc]);
+                    total++;
+                }
+                scores[doc] = 0;
+                matched[doc] = 0;
+            }
+
+            int[] ranked = top.sortedDocs();
+            List<String> ids = new ArrayList<>(ranked.length);
+            for (int doc : ranked) {
+                ids.add(productIds[doc]);
+            }
+            return new Hits(ids, total);
+        }
+
+        private float addField(Map<String, Float> frequencies, String text, float weight) {
+            List<String> tokens = Tokenizer.tokenize(text);
+            for (String token : tokens) {
+                frequencies.merge(token, weight, Float::sum);
+            }
+            return tokens.size() * weight;
+        }
+
+        private int termId(String term) {
+            Integer existing = termIds.get(term);
+            if (existing != null) {
+                return existing;
+            }
+            int id = termCount++;
+            if (id == postingDocs.length) {
+                int capacity = id * 2;
+                postingDocs = Arrays.copyOf(postingDocs, capacity);
+                postingFreqs = Arrays.copyOf(postingFreqs, capacity);
+                postingSize = Arrays.copyOf(postingSize, capacity);
+                documentFrequency = Arrays.copyOf(documentFrequency, capacity);
+            }
+            postingDocs[id] = new int[4];
+            postingFreqs[id] = new float[4];
+            termIds.put(term, id);
+            return id;
+        }
+
+        private void appendPosting(int term, int doc, float frequency) {
+            int size = postingSize[term];
+            if (size == postingDocs[term].length) {
+                postingDocs[term] = Arrays.copyOf(postingDocs[term], size * 2);
+                postingFreqs[term] = Arrays.copyOf(postingFreqs[term], size * 2);
+            }
+            postingDocs[term][size] = doc;
+            postingFreqs[term][size] = frequency;
+            postingSize[term] = size + 1;
+        }
+
+        private void ensureDocCapacity(int capacity) {
+            if (capacity > productIds.length) {
+                int newCapacity = Math.max(capacity, productIds.length * 2);
+                productIds = Arrays.copyOf(productIds, newCapacity);
+                docLength = Arrays.copyOf(docLength, newCapacity);
+                docTerms = Arrays.copyOf(docTerms, newCapacity);
+            }
+        }
+
+        // Drops tombstoned documents and renumbers the survivors densely
+        private void compact() {
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = next;
+                    productIds[next] = productIds[doc];
+                    docLength[next] = docLength[doc];
+                    docTerms[next] = docTerms[doc];
+                    docByProduct.put(productIds[next], next);
+                    next++;
+                }
+            }
+            Arrays.fill(productIds, next, docCount, null);
+            Arrays.fill(docTerms, next, docCount, null);
+
+            for (int term = 0; term < termCount; term++) {
+                int[] docs = postingDocs[term];
+                float[] freqs = postingFreqs[term];
+                int kept = 0;
+                for (int i = 0; i < postingSize[term]; i++) {
+                    int mapped = remap[docs[i]];
+                    if (mapped >= 0) {
+                        docs[kept] = mapped;
+                        freqs[kept] = freqs[i];
+                        kept++;
+                    }
+                }
+                postingSize[term] = kept;
+            }
+
+            docCount = next;
+            deletedCount = 0;
+            deleted.clear();
+        }
+    }
+
+    // Score accumulators sized to the catalog, borrowed from the pool for one query at a time
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] matched = new int[0];
+        int[] touched = new int[0];
+
+        void ensureCapacity(int capacity) {
+            if (scores.length < capacity) {
+                int newCapacity = Math.max(capacity, scores.length * 2);
+                scores = new float[newCapacity];
+                matched = new int[newCapacity];
+                touched = new int[newCapacity];
+            }
+        }
+    }
+
+    // Bounded min-heap keeping the best "limit" documents by score
+    private static final class TopK {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopK(int limit) {
+            docs = new int[limit];
+            scores = new float[limit];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(0, doc, score)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedDocs() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = docs[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        // True if the entry at heap slot i ranks below (doc, score); ties go to the lower doc number
+        private boolean worse(int i, int doc, float score) {
+            return scores[i] < score || (scores[i] == score && docs[i] > doc);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(i, docs[parent], scores[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int smallest = i;
+                if (left < size && worse(left, docs[smallest], scores[smallest])) {
+                    smallest = left;
+                }
+                if (right < size && worse(right, docs[smallest], scores[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.SearchSuggestion;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Prefix trie over product names, brands and subcategories for search-as-you-type. Every node
+ * keeps the best suggestions of its subtree, so a lookup is a walk down the typed prefix plus a
+ * copy of at most "limit" entries. Entries are reachable from each word of their text ("pro"
+ * finds "iPhone 15 Pro"), and only the paths of changed entries are re-ranked on writes.
+ */
+@Component
+public class SuggestionIndex {
+
+    private static final String PRODUCT = "product";
+    private static final String BRAND = "brand";
+    private static final String CATEGORY = "category";
+
+    // Only the first few words of a name start a key, which bounds the trie size
+    private static final int MAX_KEY_WORDS = 4;
+
+    private final MongoTemplate mongoTemplate;
+    private final int topK;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Trie trie = new Trie();
+    private volatile boolean loaded;
+    // Writes made while a rebuild reads the catalog, replayed onto the fresh trie before the swap
+    private List<Consumer<Trie>> missed;
+    private final Object rebuildLock = new Object();
+
+    public SuggestionIndex(MongoTemplate mongoTemplate, @Value("${app.suggest.top-k:10}") int topK) {
+        this.mongoTemplate = mongoTemplate;
+        this.topK = topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("name", "brand", "subcategory", "rating", "reviewCount");
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            rebuild(products::iterator);
+        }
+    }
+
+    // Built aside and swapped in, so lookups keep answering from the old trie meanwhile
+    public void rebuild(Iterable<Product> products) {
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                missed = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Trie fresh = new Trie();
+            boolean built = false;
+            try {
+                for (Product product : products) {
+                    fresh.addContribution(product, null);
+                }
+                fresh.rankSubtree(fresh.root);
+                built = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (built) {
+                        missed.forEach(change -> change.accept(fresh));
+                        trie = fresh;
+                        loaded = true;
+                    }
+                    missed = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    @EventListener
+    @Order(ProductChangedEvent.INDEX_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case RELOADED -> {
+                // Before the first load there is nothing to refresh; load() reads the current catalog
+                if (isTracking()) {
+                    rebuild();
+                }
+            }
+            case SAVED -> {
+                Product product = event.getProduct();
+                applyIfTracking(target -> update(target, product));
+            }
+            case DELETED -> {
+                String productId = event.getProductId();
+                applyIfTracking(target -> remove(target, productId));
+            }
+        }
+    }
+
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            update(trie, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            remove(trie, productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void update(Trie target, Product product) {
+        Set<Entry> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        target.removeContribution(product.getId(), touched);
+        target.addContribution(product, touched);
+        touched.forEach(target::rerank);
+    }
+
+    private static void remove(Trie target, String productId) {
+        Set<Entry> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        target.removeContribution(productId, touched);
+        touched.forEach(target::rerank);
+    }
+
+    private boolean isTracking() {
+        lock.readLock().lock();
+        try {
+            return loaded || missed != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Skipped before the first load unless a rebuild is reading the catalog, which needs to hear of it
+    private void applyIfTracking(Consumer<Trie> change) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded && missed == null) {
+                return;
+            }
+            change.accept(trie);
+            if (missed != null) {
+                missed.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SearchSuggestion> suggest(String prefix, int limit) {
+        String key = String.join(" ", Tokenizer.tokenize(prefix));
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Keep a trailing space so "iphone " only continues with whole-word matches
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + " ";
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = trie.root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            List<SearchSuggestion> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && suggestions.size() < limit; i++) {
+                Entry entry = node.top[i];
+                Integer count = PRODUCT.equals(entry.type) ? null : entry.members.size();
+                suggestions.add(new SearchSuggestion(entry.text, entry.type, count));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Everything a rebuild replaces at once; guarded by the index's lock once published
+    private final class Trie {
+        final Node root = new Node();
+        final Map<String, Entry> entries = new HashMap<>();
+        final Map<String, Contribution> contributions = new HashMap<>();
+
+        void addContribution(Product product, Set<Entry> touched) {
+            double weight = weight(product);
+            List<Entry> contributed = new ArrayList<>(3);
+            contributed.add(contribute(PRODUCT, product.getName(), product.getId(), weight, touched));
+            contributed.add(contribute(BRAND, product.getBrand(), product.getId(), weight, touched));
+            contributed.add(contribute(CATEGORY, product.getSubcategory(), product.getId(), weight, touched));
+            contributed.removeIf(entry -> entry == null);
+            contributions.put(product.getId(), new Contribution(contributed));
+        }
+
+        void removeContribution(String productId, Set<Entry> touched) {
+            Contribution contribution = contributions.remove(productId);
+            if (contribution == null) {
+                return;
+            }
+            for (Entry entry : contribution.entries) {
+                Double weight = entry.members.remove(productId);
+                if (weight != null) {
+                    entry.weight -= weight;
+                }
+                if (entry.members.isEmpty()) {
+                    entries.remove(entry.id);
+                    for (String key : entry.keys) {
+                        Node node = root.descend(key, false);
+                        if (node != null) {
+                            node.removeOwn(entry);
+                        }
+                    }
+                }
+                touched.add(entry);
+            }
+        }
+
+        private Entry contribute(String type, String text, String productId, double weight, Set<Entry> touched) {
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+            // Products are distinct suggestions; brands and categories aggregate their products
+            String id = PRODUCT.equals(type) ? type + ":" + productId : type + ":" + Tokenizer.normalize(text.trim());
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                entry = new Entry(id, text.trim(), type, keys(text));
+                entries.put(id, entry);
+                for (String key : entry.keys) {
+                    root.descend(key, true).addOwn(entry);
+                }
+            }
+            entry.members.put(productId, weight);
+            entry.weight += weight;
+            if (touched != null) {
+                touched.add(entry);
+            }
+            return entry;
+        }
+
+        // Re-ranks every node on the paths of an entry's keys, deepest first
+        void rerank(Entry entry) {
+            for (String key : entry.keys) {
+                List<Node> path = new ArrayList<>(key.length() + 1);
+                Node node = root;
+                path.add(node);
+                for (int i = 0; i < key.length() && node != null; i++) {
+                    node = node.child(key.charAt(i));
+                    if (node != null) {
+                        path.add(node);
+                    }
+                }
+                for (int i = path.size() - 1; i >= 0; i--) {
+                    rank(path.get(i));
+                }
+            }
+        }
+
+        void rankSubtree(Node node) {
+            for (Node child : node.children) {
+                rankSubtree(child);
+            }
+            rank(node);
+        }
+
+        private void rank(Node node) {
+            List<Entry> candidates = new ArrayList<>(node.own.length + node.children.length * topK);
+            Collections.addAll(candidates, node.own);
+            for (Node child : node.children) {
+                Collections.addAll(candidates, child.top);
+            }
+            candidates.sort((a, b) -> Double.compare(b.weight, a.weight));
+
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Entry> best = new ArrayList<>(topK);
+            for (Entry candidate : candidates) {
+                if (best.size() == topK) {
+                    break;
+                }
+                if (seen.add(candidate)) {
+                    best.add(candidate);
+                }
+            }
+            node.top = best.toArray(new Entry[0]);
+        }
+    }
+
+    // Popularity (review count) dampened by log, scaled by rating
+    private static double weight(Product product) {
+        return (1 + product.getRating()) * Math.log(2 + product.getReviewCount());
+    }
+
+    private static List<String> keys(String text) {
+        List<String> words = Tokenizer.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(words.size(), MAX_KEY_WORDS); i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    private static final class Entry {
+        final String id;
+        final String text;
+        final String type;
+        final List<String> keys;
+        final Map<String, Double> members = new HashMap<>();
+        double weight;
+
+        Entry(String id, String text, String type, List<String> keys) {
+            this.id = id;
+            this.text = text;
+            this.type = type;
+            this.keys = keys;
+        }
+    }
+
+    private record Contribution(List<Entry> entries) {
+    }
+
+    private static final class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        // Sorted labels with children at the same index - far smaller than a map per node
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        Entry[] own = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node descend(String key, boolean create) {
+            Node node = this;
+            for (int i = 0; i < key.length(); i++) {
+                char label = key.charAt(i);
+                int index = Arrays.binarySearch(node.labels, label);
+                if (index >= 0) {
+                    node = node.children[index];
+                } else if (!create) {
+                    return null;
+                } else {
+                    int insertAt = -index - 1;
+                    Node child = new Node();
+                    node.labels = insert(node.labels, insertAt, label);
+                    node.children = insert(node.children, insertAt, child);
+                    node = child;
+                }
+            }
+            return node;
+        }
+
+        void addOwn(Entry entry) {
+            own = Arrays.copyOf(own, own.length + 1);
+            own[own.length - 1] = entry;
+        }
+
+        void removeOwn(Entry entry) {
+            own = Arrays.stream(own).filter(e -> e != entry).toArray(Entry[]::new);
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] result = new char[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static Node[] insert(Node[] array, int index, Node value) {
+            Node[] result = new Node[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+    }
+}
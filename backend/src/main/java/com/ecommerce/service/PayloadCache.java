@@ -0,0 +1,157 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized, pre-compressed bodies for hot catalog responses (homepage lists, category tree).
+ * Each payload is rendered to JSON and gzip once and then served as raw bytes, so neither Jackson
+ * nor Tomcat compression runs per request. Product writes drop the stored bytes and schedule a
+ * debounced background rebuild of every known payload; a request arriving in between renders its
+ * payload itself.
+ */
+@Slf4j
+@Component
+public class PayloadCache {
+    private final ObjectMapper objectMapper;
+    private final long debounceMillis;
+
+    private final Map<String, Supplier<?>> sources = new ConcurrentHashMap<>();
+    private final Map<String, Payload> payloads = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payload-cache-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingRebuild;
+
+    public PayloadCache(ObjectMapper objectMapper, @Value("${app.payload-cache.debounce-ms:250}") long debounceMillis) {
+        this.objectMapper = objectMapper;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public Payload get(String key, Supplier<?> source) {
+        sources.putIfAbsent(key, source);
+        Payload payload = payloads.get(key);
+        if (payload != null) {
+            return payload;
+        }
+
+        long rendering = generation.get();
+        payload = render(source.get());
+        // Only keep it if no write happened while it was being rendered
+        if (generation.get() == rendering) {
+            payloads.put(key, payload);
+        }
+        return payload;
+    }
+
+    // The indexes apply the event first (INDEX_ORDER), so nothing rendered under the new generation shows the old state
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        payloads.clear();
+
+        // A burst of writes (seeding, imports) collapses into one rebuild after it settles
+        if (pendingRebuild != null) {
+            pendingRebuild.cancel(false);
+        }
+        pendingRebuild = rebuilder.schedule(this::rebuild, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void rebuild() {
+        long rebuilding = generation.get();
+        for (Map.Entry<String, Supplier<?>> source : sources.entrySet()) {
+            if (generation.get() != rebuilding) {
+                return;
+            }
+            try {
+                Payload payload = render(source.getValue().get());
+                if (generation.get() == rebuilding) {
+                    payloads.putIfAbsent(source.getKey(), payload);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild cached payload {}", source.getKey(), e);
+            }
+        }
+    }
+
+    private Payload render(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzip = gzip(json);
+            // Tiny bodies don't shrink; those are only ever served uncompressed
+            return new Payload(json, gzip.length < json.length ? gzip : null, etag(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payload", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        // Compressed once per rebuild, so it can afford the best ratio
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    public static final class Payload {
+        private final byte[] json;
+        // null when compressing would not make the body smaller
+        private final byte[] gzip;
+        private final String contentHash;
+
+        Payload(byte[] json, byte[] gzip, String contentHash) {
+            this.json = json;
+            this.gzip = gzip;
+            this.contentHash = contentHash;
+        }
+    }
+}
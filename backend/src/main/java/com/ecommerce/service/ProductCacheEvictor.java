@@ -0,0 +1,35 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.CacheConfig;
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ProductCacheEvictor {
+    private final CacheManager cacheManager;
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) {
+            if (event.getType() == ProductChangedEvent.Type.RELOADED) {
+                products.clear();
+            } else {
+                products.evict(event.getProductId());
+            }
+        }
+
+        // Any write can move a product in or out of a cached result page or facet count
+        for (String name : new String[]{CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_FACETS}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
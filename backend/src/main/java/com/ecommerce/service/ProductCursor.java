@@ -0,0 +1,92 @@
+package com.ecommerce.service;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Opaque continuation token for keyset pagination. It carries the sort it was issued for plus
+ * either the sort-key and _id values of the last row returned, or - for relevance-ranked searches,
+ * whose order only exists in memory - the position in the ranked list. The token is URL-safe
+ * base64 over extended JSON, so key values keep their BSON types across the round-trip.
+ */
+final class ProductCursor {
+
+    private static final int VERSION = 1;
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final String sort;
+    private final Map<String, Object> keys;
+    private final int offset;
+
+    private ProductCursor(String sort, Map<String, Object> keys, int offset) {
+        this.sort = sort;
+        this.keys = keys;
+        this.offset = offset;
+    }
+
+    static ProductCursor keyset(Sort sort, Map<String, Object> keys) {
+        return new ProductCursor(describe(sort), keys, 0);
+    }
+
+    static ProductCursor ranked(int offset) {
+        return new ProductCursor(describe(Sort.unsorted()), null, offset);
+    }
+
+    Map<String, Object> getKeys() {
+        return keys;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    boolean isRanked() {
+        return keys == null;
+    }
+
+    // A cursor only makes sense for the ordering it was issued under
+    boolean matches(Sort sort) {
+        return this.sort.equals(describe(sort));
+    }
+
+    String encode() {
+        Document document = new Document("v", VERSION).append("s", sort);
+        if (keys != null) {
+            document.append("k", new Document(keys));
+        } else {
+            document.append("o", offset);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(document.toJson(JSON).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProductCursor decode(String token) {
+        Document document;
+        try {
+            document = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        if (!Integer.valueOf(VERSION).equals(document.get("v")) || !(document.get("s") instanceof String sort)) {
+            throw new IllegalArgumentException("Unsupported cursor");
+        }
+
+        if (document.get("k") instanceof Document keys) {
+            return new ProductCursor(sort, keys, 0);
+        }
+        if (!(document.get("o") instanceof Integer offset) || offset < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new ProductCursor(sort, null, offset);
+    }
+
+    private static String describe(Sort sort) {
+        return sort.isSorted() ? sort.toString() : "relevance";
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as newline-delimited JSON, one raw document per line, straight from a Mongo
+ * cursor. Nothing is mapped to Product and only one document is held at a time; the cursor fetches
+ * its next batch only once the previous one has been written, so a slow client holds the export
+ * back through the blocking output stream instead of letting it pile up in memory.
+ *
+ * <p>Lines are relaxed extended JSON, which the importer reads back as is.
+ */
+@Slf4j
+@Component
+public class ProductExporter {
+    private static final String COLLECTION = "products";
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductQueryBuilder queryBuilder;
+    private final int batchSize;
+
+    public ProductExporter(MongoTemplate mongoTemplate, ProductQueryBuilder queryBuilder,
+                           @Value("${app.export.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryBuilder = queryBuilder;
+        this.batchSize = batchSize;
+    }
+
+    // Returns the number of products written; the caller owns and closes the stream
+    public long export(ProductFilter filter, OutputStream out) throws IOException {
+        Query query = queryBuilder.build(filter)
+                .with(Sort.by("_id"))
+                .cursorBatchSize(batchSize);
+        // Seeding bookkeeping, not product data
+        query.fields().exclude("seedHash");
+
+        long started = System.nanoTime();
+        long written = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, COLLECTION)) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next().toJson(JSON));
+                writer.write('\n');
+                written++;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} products in {} ms", written, (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+}
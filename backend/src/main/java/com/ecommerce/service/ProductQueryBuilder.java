@@ -0,0 +1,74 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Combines every filter of a {@link ProductFilter} into one Mongo query. Each predicate has a
+ * matching index declared on {@link com.ecommerce.model.Product}, so any supported combination is
+ * answered with an index scan.
+ */
+@Component
+public class ProductQueryBuilder {
+
+    public Query build(ProductFilter filter) {
+        return new Query(criteria(filter));
+    }
+
+    public Criteria criteria(ProductFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (filter.getSearch() != null) {
+            // Fallback for when the in-memory search index isn't loaded yet.
+            // Quote the user input - it must never be interpreted as a pattern
+            criteria.add(Criteria.where("name").regex(Pattern.quote(filter.getSearch()), "i"));
+        }
+        if (filter.getCategory() != null) {
+            criteria.add(Criteria.where("category").is(filter.getCategory()));
+        }
+        if (filter.getSubcategory() != null) {
+            criteria.add(Criteria.where("subcategory").is(filter.getSubcategory()));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.getMinPrice() != null) {
+                price = price.gte(filter.getMinPrice());
+            }
+            if (filter.getMaxPrice() != null) {
+                price = price.lte(filter.getMaxPrice());
+            }
+            criteria.add(price);
+        }
+        if (filter.getBrand() != null) {
+            criteria.add(Criteria.where("brand").is(filter.getBrand()));
+        }
+        if (filter.getMinRating() != null) {
+            criteria.add(Criteria.where("rating").gte(filter.getMinRating()));
+        }
+        if (filter.getInStock() != null) {
+            criteria.add(filter.getInStock()
+                    ? Criteria.where("stock").gt(0)
+                    : Criteria.where("stock").lte(0));
+        }
+        if (filter.getOnSale() != null) {
+            criteria.add(Criteria.where("isOnSale").is(filter.getOnSale()));
+        }
+        if (filter.getNewArrival() != null) {
+            criteria.add(Criteria.where("isNew").is(filter.getNewArrival()));
+        }
+        if (filter.getFeatured() != null) {
+            criteria.add(Criteria.where("isFeatured").is(filter.getFeatured()));
+        }
+
+        if (criteria.isEmpty()) {
+            return new Criteria();
+        }
+        return criteria.size() == 1 ? criteria.get(0) : new Criteria().andOperator(criteria);
+    }
+}
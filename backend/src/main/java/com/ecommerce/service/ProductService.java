@@ -1,84 +1,420 @@
 package com.ecommerce.service;
 
+import com.ecommerce.catalog.CategoryIndex;
+import com.ecommerce.catalog.ColumnarCatalog;
+import com.ecommerce.config.CacheConfig;
+import com.ecommerce.dto.CursorSlice;
+import com.ecommerce.dto.ProductBatch;
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.dto.SearchPage;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
+    private final CategoryIndex categoryIndex;
+    private final MongoTemplate mongoTemplate;
+    private final ProductQueryBuilder queryBuilder;
+    private final ProductSearchIndex searchIndex;
+    private final CacheManager cacheManager;
+    // Only present with app.catalog.engine=columnar
+    private final ObjectProvider<ColumnarCatalog> columnarCatalog;
 
-    public Page<Product> findProducts(
-            String category,
-            String subcategory,
-            String search,
-            Double minPrice,
-            Double maxPrice,
-            PageRequest pageRequest
-    ) {
-        if (search != null && !search.isEmpty()) {
-            return productRepository.findByNameContainingIgnoreCase(search, pageRequest);
+    private static final Double[] PRICE_BOUNDARIES = {0.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 2500.0};
+    private static final Double[] RATING_BOUNDARIES = {0.0, 1.0, 2.0, 3.0, 4.0, 4.5, 5.01};
+
+    private static final String COLLECTION = "products";
+    private static final String[] CARD_FIELDS = {
+            "name", "slug", "brand", "category", "subcategory", "price", "discountPrice",
+            "rating", "reviewCount", "stock", "isNew", "isOnSale"
+    };
+
+    @Value("${app.search.max-results:1000}")
+    private int maxSearchResults;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxSliceSize;
+
+    /**
+     * One page of products matching the filter, read as the given view: {@link ProductCard} for
+     * listings (projected fields only) or {@link Product} for the full document.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "{#filter, #pageRequest, #view.simpleName}")
+    public <T> Page<T> findProducts(ProductFilter filter, PageRequest pageRequest, Class<T> view) {
+        if (filter.getSearch() != null && searchIndex.isLoaded()) {
+            return searchProducts(filter, pageRequest, view);
+        }
+
+        ColumnarCatalog columnar = columnarCatalog.getIfAvailable();
+        if (columnar != null) {
+            Optional<Page<T>> page = findColumnar(columnar, filter, pageRequest, view);
+            if (page.isPresent()) {
+                return page.get();
+            }
+        }
+
+        // All filters are combined into a single query instead of the first one winning
+        Query query = queryBuilder.build(filter).with(pageRequest);
+        List<T> content = find(query, view);
+        // The count query only runs when the page alone can't tell the total
+        return PageableExecutionUtils.getPage(content, pageRequest,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Product.class));
+    }
+
+    // Cards come straight out of the column store; full documents are then fetched by id
+    @SuppressWarnings("unchecked")
+    private <T> Optional<Page<T>> findColumnar(ColumnarCatalog columnar, ProductFilter filter, PageRequest pageRequest, Class<T> view) {
+        if (view == ProductCard.class) {
+            return columnar.findCards(filter, pageRequest).map(page -> (Page<T>) page);
+        }
+        return columnar.findIds(filter, pageRequest)
+                .map(ids -> new PageImpl<>(findInOrder(ids.getContent(), view), pageRequest, ids.getTotalElements()));
+    }
+
+    // Full-text matches come from the in-memory index; Mongo only applies the remaining filters by _id
+    private <T> Page<T> searchProducts(ProductFilter filter, PageRequest pageRequest, Class<T> view) {
+        ProductSearchIndex.Hits hits = searchIndex.search(filter.getSearch(), maxSearchResults);
+        List<String> rankedIds = hits.ids();
+        if (rankedIds.isEmpty()) {
+            return Page.empty(pageRequest);
+        }
+
+        Criteria criteria = searchCriteria(filter, rankedIds);
+
+        if (pageRequest.getSort().isSorted()) {
+            Query query = new Query(criteria).with(pageRequest);
+            List<T> content = find(query, view);
+            Page<T> page = PageableExecutionUtils.getPage(content, pageRequest,
+                    () -> mongoTemplate.count(new Query(criteria), Product.class));
+            return new SearchPage<>(content, pageRequest, page.getTotalElements(), hits.total(), hits.isTruncated());
+        }
+
+        // Unsorted means relevance order: keep the index ranking and only fetch the requested page
+        List<String> orderedIds = matchingInRankOrder(filter, rankedIds);
+        int from = (int) Math.min(pageRequest.getOffset(), orderedIds.size());
+        int to = Math.min(from + pageRequest.getPageSize(), orderedIds.size());
+        return new SearchPage<>(findInOrder(orderedIds.subList(from, to), view), pageRequest, orderedIds.size(),
+                hits.total(), hits.isTruncated());
+    }
+
+    /**
+     * Keyset pagination: each call seeks past the last row of the previous one on a
+     * (sort field, _id) index instead of skipping, and never counts, so deep pages cost the
+     * same as the first. A null cursor starts from the beginning.
+     */
+    public <T> CursorSlice<T> findProductsAfter(ProductFilter filter, Sort sort, int size, String cursor, Class<T> view) {
+        // A zero limit means "no limit" to Mongo, so it must never get that far
+        if (size < 1 || size > maxSliceSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxSliceSize);
+        }
+        ProductCursor position = cursor != null ? ProductCursor.decode(cursor) : null;
+        if (position != null && !position.matches(sort)) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+
+        if (filter.getSearch() != null && searchIndex.isLoaded()) {
+            List<String> rankedIds = searchIndex.search(filter.getSearch(), maxSearchResults).ids();
+            if (rankedIds.isEmpty()) {
+                return new CursorSlice<>(List.of(), 0, null, false);
+            }
+            if (sort.isUnsorted()) {
+                return rankedSlice(matchingInRankOrder(filter, rankedIds), size, position, view);
+            }
+            return keysetSlice(searchCriteria(filter, rankedIds), sort, size, position, view);
+        }
+        return keysetSlice(queryBuilder.criteria(filter), sort, size, position, view);
+    }
+
+    public <T> CursorSlice<T> findByCategoryAfter(String category, int size, String cursor, Class<T> view) {
+        return findProductsAfter(ProductFilter.builder().category(category).build(), Sort.by("_id"), size, cursor, view);
+    }
+
+    private <T> CursorSlice<T> keysetSlice(Criteria criteria, Sort sort, int size, ProductCursor position, Class<T> view) {
+        if (position != null && position.isRanked()) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+
+        // _id breaks ties so the seek predicate is strict and no row is returned twice
+        Sort keysetSort = sort.isSorted() ? sort : Sort.by("_id");
+        if (keysetSort.getOrderFor("_id") == null) {
+            Sort.Direction direction = keysetSort.stream().reduce((first, second) -> second).orElseThrow().getDirection();
+            keysetSort = keysetSort.and(Sort.by(direction, "_id"));
+        }
+
+        Query query = new Query(criteria)
+                .with(keysetSort)
+                .with(position == null ? ScrollPosition.keyset() : ScrollPosition.forward(position.getKeys()))
+                .limit(size);
+        // The seek keys are read back from the returned rows, so they must survive the projection
+        project(query, view, keysetSort);
+        // A card has no property for sort keys such as createdAt, so cards are scrolled as
+        // projected products, which can carry every key, and converted afterwards
+        Class<?> scrolled = view == ProductCard.class ? Product.class : view;
+        Window<?> window = mongoTemplate.scroll(query, scrolled, COLLECTION);
+
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            next = ProductCursor.keyset(sort, last.getKeys()).encode();
+        }
+        return new CursorSlice<>(asView(window.getContent(), view), window.size(), next, next != null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asView(List<?> rows, Class<T> view) {
+        if (view == ProductCard.class) {
+            return (List<T>) rows.stream().map(row -> ProductCard.of((Product) row)).toList();
+        }
+        return (List<T>) rows;
+    }
+
+    // Relevance order only exists in memory, so the cursor is a position in the ranked id list
+    private <T> CursorSlice<T> rankedSlice(List<String> orderedIds, int size, ProductCursor position, Class<T> view) {
+        if (position != null && !position.isRanked()) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
         }
-        
-        if (category != null && subcategory != null) {
-            return productRepository.findByCategoryAndSubcategory(category, subcategory, pageRequest);
+
+        int from = Math.min(position != null ? position.getOffset() : 0, orderedIds.size());
+        int to = Math.min(from + size, orderedIds.size());
+        List<T> content = findInOrder(orderedIds.subList(from, to), view);
+        String next = to < orderedIds.size() ? ProductCursor.ranked(to).encode() : null;
+        return new CursorSlice<>(content, content.size(), next, next != null);
+    }
+
+    // Ranked ids that also pass the non-text filters, still in ranking order
+    private List<String> matchingInRankOrder(ProductFilter filter, List<String> rankedIds) {
+        Query idQuery = new Query(searchCriteria(filter, rankedIds));
+        idQuery.fields().include("_id");
+        Set<String> matching = new HashSet<>();
+        for (Product product : mongoTemplate.find(idQuery, Product.class)) {
+            matching.add(product.getId());
         }
-        
-        if (category != null) {
-            return productRepository.findByCategory(category, pageRequest);
+        return rankedIds.stream().filter(matching::contains).toList();
+    }
+
+    private <T> List<T> findInOrder(List<String> ids, Class<T> view) {
+        IdentifierAccessor<T> identifiers = identifierAccessor(view);
+        Map<Object, T> byId = new HashMap<>();
+        for (T row : find(Query.query(Criteria.where("_id").in(ids)), view)) {
+            byId.put(identifiers.get(row), row);
         }
-        
-        if (subcategory != null) {
-            return productRepository.findBySubcategory(subcategory, pageRequest);
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private <T> List<T> find(Query query, Class<T> view) {
+        return mongoTemplate.find(project(query, view, Sort.unsorted()), view, COLLECTION);
+    }
+
+    // Cards read only what a tile renders; the full view reads the whole document
+    private static Query project(Query query, Class<?> view, Sort sort) {
+        if (view == ProductCard.class) {
+            query.fields().include(CARD_FIELDS).slice("images", 1);
+            sort.forEach(order -> query.fields().include(order.getProperty()));
         }
-        
-        if (minPrice != null && maxPrice != null) {
-            return productRepository.findByPriceRange(minPrice, maxPrice, pageRequest);
+        return query;
+    }
+
+    private <T> IdentifierAccessor<T> identifierAccessor(Class<T> view) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(view);
+        return row -> entity.getIdentifierAccessor(row).getIdentifier();
+    }
+
+    private interface IdentifierAccessor<T> {
+        Object get(T row);
+    }
+
+    // Brand, price, rating and subcategory counts for the current filter set in one $facet round-trip
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_FACETS, key = "#filter")
+    public ProductFacets findFacets(ProductFilter filter) {
+        Criteria criteria;
+        if (filter.getSearch() != null && searchIndex.isLoaded()) {
+            List<String> rankedIds = searchIndex.search(filter.getSearch(), maxSearchResults).ids();
+            if (rankedIds.isEmpty()) {
+                return new ProductFacets(List.of(), List.of(), List.of(), List.of());
+            }
+            criteria = searchCriteria(filter, rankedIds);
+        } else {
+            criteria = queryBuilder.criteria(filter);
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.facet(Aggregation.sortByCount("brand")).as("brands")
+                        .and(Aggregation.bucket("price")
+                                .withBoundaries((Object[]) PRICE_BOUNDARIES)
+                                .withDefaultBucket(PRICE_BOUNDARIES[PRICE_BOUNDARIES.length - 1])
+                                .andOutputCount().as("count")).as("priceRanges")
+                        // Unrated products store 0.0 and would otherwise fill the lowest rating bucket
+                        .and(Aggregation.match(Criteria.where("rating").gt(0)),
+                                Aggregation.bucket("rating")
+                                        .withBoundaries((Object[]) RATING_BOUNDARIES)
+                                        .withDefaultBucket(-1)
+                                        .andOutputCount().as("count")).as("ratings")
+                        .and(Aggregation.sortByCount("subcategory")).as("subcategories")
+        );
+
+        Document result = mongoTemplate.aggregate(aggregation, "products", Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return new ProductFacets(List.of(), List.of(), List.of(), List.of());
+        }
+        return new ProductFacets(
+                valueCounts(result.getList("brands", Document.class)),
+                rangeCounts(result.getList("priceRanges", Document.class), PRICE_BOUNDARIES),
+                rangeCounts(result.getList("ratings", Document.class), RATING_BOUNDARIES),
+                valueCounts(result.getList("subcategories", Document.class))
+        );
+    }
+
+    private Criteria searchCriteria(ProductFilter filter, List<String> rankedIds) {
+        return new Criteria().andOperator(
+                queryBuilder.criteria(filter.toBuilder().search(null).build()),
+                Criteria.where("_id").in(rankedIds)
+        );
+    }
+
+    private static List<ProductFacets.ValueCount> valueCounts(List<Document> rows) {
+        List<ProductFacets.ValueCount> counts = new ArrayList<>(rows.size());
+        for (Document row : rows) {
+            Object value = row.get("_id");
+            if (value != null) {
+                counts.add(new ProductFacets.ValueCount(value.toString(), ((Number) row.get("count")).longValue()));
+            }
+        }
+        return counts;
+    }
+
+    // $bucket labels each bucket with its lower boundary; the default bucket holds everything above the last one
+    private static List<ProductFacets.RangeCount> rangeCounts(List<Document> rows, Double[] boundaries) {
+        List<ProductFacets.RangeCount> counts = new ArrayList<>(rows.size());
+        for (Document row : rows) {
+            double min = ((Number) row.get("_id")).doubleValue();
+            if (min < 0) {
+                continue;
+            }
+            Double max = null;
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                if (boundaries[i] == min) {
+                    max = boundaries[i + 1];
+                }
+            }
+            counts.add(new ProductFacets.RangeCount(min, max, ((Number) row.get("count")).longValue()));
+        }
+        return counts;
+    }
+
+    /**
+     * Multi-get by id or slug. Full products already in the product cache are served from it; the
+     * rest are resolved with a single $in query on _id and slug, and fetched full documents are
+     * put back in the cache. Results follow the request order, duplicates collapsed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ProductBatch<T> findBatch(List<String> keys, Class<T> view) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key != null && !key.isBlank()) {
+                requested.add(key.trim());
+            }
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        Map<String, Product> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String key : requested) {
+            Product cached = cache != null ? cache.get(key, Product.class) : null;
+            if (cached != null) {
+                resolved.put(key, cached);
+            } else {
+                misses.add(key);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where("_id").in(misses),
+                    Criteria.where("slug").in(misses)
+            ));
+            boolean full = view != ProductCard.class;
+            if (!full) {
+                query.fields().include(CARD_FIELDS).slice("images", 1);
+            }
+            for (Product product : mongoTemplate.find(query, Product.class)) {
+                resolved.put(product.getId(), product);
+                if (product.getSlug() != null) {
+                    resolved.putIfAbsent(product.getSlug(), product);
+                }
+                // Only whole documents may go into the cache findById reads from
+                if (full && cache != null) {
+                    cache.put(product.getId(), product);
+                }
+            }
+        }
+
+        List<T> products = new ArrayList<>(requested.size());
+        List<String> missing = new ArrayList<>();
+        for (String key : requested) {
+            Product product = resolved.get(key);
+            if (product == null) {
+                missing.add(key);
+            } else {
+                products.add((T) (view == ProductCard.class ? ProductCard.of(product) : product));
+            }
         }
-        
-        return productRepository.findAll(pageRequest);
+        return new ProductBatch<>(products, missing);
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public Optional<Product> findById(String id) {
         return productRepository.findById(id);
     }
 
-    public Page<Product> findByCategory(String category, PageRequest pageRequest) {
-        return productRepository.findByCategory(category, pageRequest);
+    // Cached under the same key findProducts uses for this filter, so both endpoints share entries
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES,
+            key = "{T(com.ecommerce.dto.ProductFilter).builder().category(#category).build(), #pageRequest, #view.simpleName}")
+    public <T> Page<T> findByCategory(String category, PageRequest pageRequest, Class<T> view) {
+        return findProducts(ProductFilter.builder().category(category).build(), pageRequest, view);
     }
 
-    public List<Product> findFeaturedProducts() {
-        return productRepository.findByIsFeatured(true);
+    public <T> List<T> findFeaturedProducts(Class<T> view) {
+        return find(Query.query(Criteria.where("isFeatured").is(true)), view);
     }
 
-    public List<Product> findNewProducts() {
-        return productRepository.findByIsNew(true);
+    public <T> List<T> findNewProducts(Class<T> view) {
+        return find(Query.query(Criteria.where("isNew").is(true)), view);
     }
 
-    public List<Product> findOnSaleProducts() {
-        return productRepository.findByIsOnSale(true);
+    public <T> List<T> findOnSaleProducts(Class<T> view) {
+        return find(Query.query(Criteria.where("isOnSale").is(true)), view);
     }
 
     public Map<String, List<String>> getAllCategories() {
-        List<Product> products = productRepository.findAll();
-        Map<String, Set<String>> categoryMap = new HashMap<>();
-        
-        for (Product product : products) {
-            categoryMap.computeIfAbsent(product.getCategory(), k -> new HashSet<>())
-                      .add(product.getSubcategory());
-        }
-        
-        return categoryMap.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    e -> new ArrayList<>(e.getValue())
-                ));
+        return categoryIndex.getSubcategoryNames();
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.BrandNode;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BrandIndexTest {
+
+    private final BrandIndex index = new BrandIndex(null);
+
+    @Test
+    public void testSpreadsBrandsOverCategoriesLargestFirst() {
+        index.rebuild(List.of(
+                product("A1", "Apple", "Electronics"),
+                product("A2", "Apple", "Electronics"),
+                product("A3", "Apple", "Accessories"),
+                product("N1", "Nike", "Fashion"),
+                product("X1", " ", "Fashion")));
+
+        assertEquals(List.of("Apple", "Nike"), index.getBrandNames());
+        BrandNode apple = index.findBySlug("apple").orElseThrow();
+        assertEquals(3, apple.getCount());
+        assertEquals(List.of("Electronics", "Accessories"), apple.getCategories().stream().map(BrandNode.CategoryCount::getName).toList());
+
+        index.onProductChanged(ProductChangedEvent.deleted("N1", product("N1", "Nike", "Fashion")));
+        assertTrue(index.findBySlug("nike").isEmpty());
+    }
+
+    @Test
+    public void testCollidingSlugsAreToldApart() {
+        index.rebuild(List.of(
+                product("D1", "Dr. Martens", "Fashion"),
+                product("D2", "Dr Martens", "Fashion"),
+                product("D3", "DR MARTENS", "Fashion")));
+
+        // On a fresh index name order decides who keeps the plain slug
+        assertEquals("DR MARTENS", index.findBySlug("dr-martens").orElseThrow().getName());
+        assertEquals("Dr Martens", index.findBySlug("dr-martens-2").orElseThrow().getName());
+        assertEquals("Dr. Martens", index.findBySlug("dr-martens-3").orElseThrow().getName());
+        assertEquals(3, index.getBrands().stream().map(BrandNode::getSlug).distinct().count());
+    }
+
+    @Test
+    public void testNewCollidingBrandDoesNotRenameAnExistingOne() {
+        index.rebuild(List.of(product("D2", "Dr Martens", "Fashion")));
+        assertEquals("dr-martens", index.getBrands().get(0).getSlug());
+
+        // "DR MARTENS" sorts first, but "Dr Martens" already owns the plain slug
+        index.onProductChanged(ProductChangedEvent.saved(product("D3", "DR MARTENS", "Fashion"), null));
+        assertEquals("Dr Martens", index.findBySlug("dr-martens").orElseThrow().getName());
+        assertEquals("DR MARTENS", index.findBySlug("dr-martens-2").orElseThrow().getName());
+
+        // A brand that runs out of products keeps its slug for when it returns
+        index.onProductChanged(ProductChangedEvent.deleted("D2", product("D2", "Dr Martens", "Fashion")));
+        index.rebuild(List.of(product("D3", "DR MARTENS", "Fashion"), product("D4", "Dr Martens", "Fashion")));
+        assertEquals("Dr Martens", index.findBySlug("dr-martens").orElseThrow().getName());
+        assertEquals("DR MARTENS", index.findBySlug("dr-martens-2").orElseThrow().getName());
+    }
+
+    private static Product product(String id, String brand, String category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setBrand(brand);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CatalogVersionTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CatalogVersion version = new CatalogVersion(mongoTemplate);
+
+    @Test
+    public void testWritesOnlyMarkTheVersionStale() {
+        when(mongoTemplate.estimatedCount(Product.class)).thenReturn(10L);
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(updatedAt(1_000));
+        version.refresh();
+        String before = version.getETag();
+
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(updatedAt(2_000));
+        for (int i = 0; i < 100; i++) {
+            version.onProductChanged(ProductChangedEvent.saved(updatedAt(2_000), null));
+        }
+        verify(mongoTemplate, times(1)).estimatedCount(Product.class);
+
+        // The first read after the burst recomputes once; later reads reuse it
+        assertNotEquals(before, version.getETag());
+        version.getETag();
+        verify(mongoTemplate, times(2)).estimatedCount(Product.class);
+    }
+
+    @Test
+    public void testDeletesMoveLastModifiedForward() {
+        when(mongoTemplate.estimatedCount(Product.class)).thenReturn(10L, 9L);
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(updatedAt(1_000));
+        version.refresh();
+        String before = version.getETag();
+
+        long deletedAt = System.currentTimeMillis();
+        version.onProductChanged(ProductChangedEvent.deleted("ELEC001", null));
+
+        assertNotEquals(before, version.getETag());
+        assertTrue(version.getLastModified() >= deletedAt);
+    }
+
+    @Test
+    public void testNothingIsReadUntilAskedFor() {
+        version.onProductChanged(ProductChangedEvent.reloaded());
+        verify(mongoTemplate, never()).estimatedCount(Product.class);
+    }
+
+    private static Product updatedAt(long updatedAt) {
+        Product product = new Product();
+        product.setId("ELEC001");
+        product.setUpdatedAt(updatedAt);
+        return product;
+    }
+}
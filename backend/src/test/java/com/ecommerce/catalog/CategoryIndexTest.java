@@ -0,0 +1,60 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.CategoryNode;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CategoryIndexTest {
+
+    private final CategoryIndex index = new CategoryIndex(null);
+
+    @BeforeEach
+    public void setUp() {
+        index.rebuild(List.of(
+                product("E1", "Electronics", "Smartphones"),
+                product("E2", "Electronics", "Smartphones"),
+                product("E3", "Electronics", "Laptops"),
+                product("H1", "Home & Garden", "Lighting")));
+    }
+
+    @Test
+    public void testCountsCategoriesAndSubcategoriesInNameOrder() {
+        assertEquals(4, index.getTotalProducts());
+        assertEquals(Map.of("Electronics", List.of("Laptops", "Smartphones"), "Home & Garden", List.of("Lighting")),
+                index.getSubcategoryNames());
+
+        CategoryNode home = index.findBySlug("home-garden").orElseThrow();
+        assertEquals(1, home.getCount());
+        assertEquals("lighting", home.getSubcategories().get(0).getSlug());
+    }
+
+    @Test
+    public void testMovesProductsBetweenGroupsOnWrites() {
+        index.onProductChanged(ProductChangedEvent.saved(product("E3", "Home & Garden", "Lighting"),
+                product("E3", "Electronics", "Laptops")));
+        assertEquals(List.of("Smartphones"), index.getSubcategoryNames().get("Electronics"));
+        assertEquals(2, index.findBySlug("home-garden").orElseThrow().getSubcategories().get(0).getCount());
+
+        index.onProductChanged(ProductChangedEvent.deleted("H1", product("H1", "Home & Garden", "Lighting")));
+        index.onProductChanged(ProductChangedEvent.deleted("E3", product("E3", "Home & Garden", "Lighting")));
+        // A group whose last product left disappears rather than showing zero
+        assertTrue(index.findBySlug("home-garden").isEmpty());
+        assertEquals(2, index.getTotalProducts());
+    }
+
+    private static Product product(String id, String category, String subcategory) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setSubcategory(subcategory);
+        return product;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarCatalogTest {
+
+    private static final String[] CATEGORIES = {"Electronics", "Fashion", "Sports"};
+    private static final String[] BRANDS = {"Apple", "Samsung", "Nike", "Uniqlo"};
+
+    private ColumnarCatalog catalog;
+    private List<Product> products;
+
+    @BeforeEach
+    public void setUp() {
+        Random random = new Random(42);
+        products = new ArrayList<>();
+        // More than one chunk, so the parallel count and the chunk jump are exercised
+        for (int i = 0; i < 40_000; i++) {
+            products.add(Product.builder()
+                    .id(String.format("P%06d", i))
+                    .name("Product " + random.nextInt(5_000))
+                    .brand(BRANDS[random.nextInt(BRANDS.length)])
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .subcategory("Sub " + random.nextInt(4))
+                    .price(random.nextInt(1_000))
+                    .rating(random.nextInt(6))
+                    .stock(random.nextInt(3))
+                    .isOnSale(random.nextBoolean())
+                    .isNew(random.nextBoolean())
+                    .isFeatured(random.nextInt(5) == 0)
+                    .build());
+        }
+        catalog = new ColumnarCatalog(null, 0);
+        catalog.rebuild(products);
+    }
+
+    @Test
+    public void testFilterSortAndPageMatchBruteForce() {
+        ProductFilter filter = ProductFilter.builder()
+                .category("Electronics").minPrice(100.0).maxPrice(700.0).inStock(true).onSale(true)
+                .build();
+        Predicate<Product> matches = p -> "Electronics".equals(p.getCategory())
+                && p.getPrice() >= 100 && p.getPrice() <= 700 && p.getStock() > 0 && p.isOnSale();
+        Comparator<Product> byPriceDesc = Comparator.comparingDouble(Product::getPrice)
+                .thenComparing(Product::getId).reversed();
+
+        List<String> expected = products.stream().filter(matches).sorted(byPriceDesc).map(Product::getId).toList();
+        PageRequest pageRequest = PageRequest.of(100, 24, Sort.by(Sort.Direction.DESC, "price"));
+        Page<ProductCard> page = catalog.findCards(filter, pageRequest).orElseThrow();
+
+        assertEquals(expected.size(), page.getTotalElements());
+        assertEquals(expected.subList(100 * 24, 100 * 24 + 24), page.getContent().stream().map(ProductCard::getId).toList());
+    }
+
+    @Test
+    public void testUnknownDictionaryValueMatchesNothing() {
+        Page<String> page = catalog.findIds(ProductFilter.builder().brand("Acme").build(), PageRequest.of(0, 12)).orElseThrow();
+        assertEquals(0, page.getTotalElements());
+    }
+
+    @Test
+    public void testUnsupportedQueriesFallBack() {
+        assertTrue(catalog.findIds(ProductFilter.builder().search("phone").build(), PageRequest.of(0, 12)).isEmpty());
+        assertTrue(catalog.findIds(ProductFilter.empty(), PageRequest.of(0, 12, Sort.by("color"))).isEmpty());
+    }
+}
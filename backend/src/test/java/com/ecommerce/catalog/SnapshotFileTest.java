@@ -0,0 +1,120 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnapshotFileTest {
+    private static final long NOW = 1_760_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+    @Test
+    public void restoresEveryProductFromTheMappedFile() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        SnapshotFile.Header written = SnapshotFile.write(path, documents(250).iterator(), NOW - 5, NOW);
+
+        SnapshotFile snapshot = SnapshotFile.open(path);
+        assertEquals(written, snapshot.header);
+        assertEquals(250, snapshot.header.productCount());
+        assertTrue(snapshot.header.sameCatalogAs(250, NOW - 5));
+        assertFalse(snapshot.header.sameCatalogAs(249, NOW - 5));
+
+        // Each pass starts over, so every index can take its own
+        for (int pass = 0; pass < 2; pass++) {
+            List<Product> products = new ArrayList<>();
+            snapshot.products(converter).forEach(products::add);
+            assertEquals(250, products.size());
+            Product last = products.get(249);
+            assertEquals("P249", last.getId());
+            assertEquals(249.5, last.getPrice());
+            assertEquals(List.of("/products/Sports/P249/1.jpg", "/products/Sports/P249/2.jpg"), last.getImages());
+            assertEquals("256GB", last.getSpecs().get("Storage"));
+        }
+        assertEquals(written, SnapshotFile.readHeader(path));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void rejectsCorruptTruncatedAndForeignFiles() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        SnapshotFile.write(path, documents(10).iterator(), NOW, NOW);
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(SnapshotFile.HEADER_BYTES + 40);
+            int original = file.read();
+            file.seek(SnapshotFile.HEADER_BYTES + 40);
+            file.write(original ^ 0xff);
+        }
+        assertEquals("checksum mismatch", assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(path)).getMessage());
+
+        SnapshotFile.write(path, documents(10).iterator(), NOW, NOW);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(path));
+
+        SnapshotFile.write(path, documents(10).iterator(), NOW, NOW);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(4);
+            file.writeInt(SnapshotFile.FORMAT_VERSION + 1);
+        }
+        assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(path));
+
+        Files.writeString(path, "[{\"_id\": \"not a snapshot\"}]");
+        assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(path));
+        assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(directory.resolve("missing")));
+    }
+
+    @Test
+    public void rejectsPayloadsTooLargeToMap() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        // Sparse, so it takes no real space
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(SnapshotFile.HEADER_BYTES + SnapshotFile.MAX_PAYLOAD_BYTES + 1);
+        }
+        String message = assertThrows(SnapshotFile.InvalidSnapshotException.class, () -> SnapshotFile.open(path)).getMessage();
+        assertTrue(message.contains("larger than"), message);
+    }
+
+    private List<RawBsonDocument> documents(int count) {
+        List<RawBsonDocument> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId("P" + i);
+            product.setName("Product " + i);
+            product.setCategory("Sports");
+            product.setPrice(i + 0.5);
+            product.setImages(List.of("/products/Sports/P" + i + "/1.jpg", "/products/Sports/P" + i + "/2.jpg"));
+            product.setSpecs(Map.of("Storage", "256GB"));
+            Document document = new Document();
+            converter.write(product, document);
+            documents.add(new RawBsonDocument(document, new DocumentCodec()));
+        }
+        return documents;
+    }
+}
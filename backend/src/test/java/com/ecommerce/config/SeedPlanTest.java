@@ -0,0 +1,154 @@
+package com.ecommerce.config;
+
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeedPlanTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+    @Test
+    public void insertsEverythingIntoAnEmptyCatalog() {
+        SeedPlan plan = SeedPlan.of(seed(), Map.of(), converter, NOW);
+
+        assertEquals(3, plan.inserts.size());
+        assertTrue(plan.updates.isEmpty());
+        Document first = plan.inserts.get(0);
+        assertEquals(NOW, first.get("updatedAt"));
+        assertEquals(50, first.get("stock"));
+        assertTrue(first.getString("seedHash").length() > 0);
+        assertTrue(first.containsKey("isFeatured"));
+        assertTrue(first.containsKey("isOnSale"));
+    }
+
+    @Test
+    public void plansNothingWhenTheSeedIsUnchanged() {
+        Map<String, Product> stored = storedFrom(SeedPlan.of(seed(), Map.of(), converter, NOW));
+
+        // Specs rebuilt in a different iteration order must not count as a change
+        List<Product> again = seed();
+        Map<String, String> reordered = new LinkedHashMap<>();
+        reordered.put("Storage", "256GB");
+        reordered.put("Display", "6.1-inch");
+        again.get(0).setSpecs(reordered);
+
+        assertTrue(SeedPlan.of(again, stored, converter, NOW).isEmpty());
+    }
+
+    @Test
+    public void updatesOnlyChangedProductsAndKeepsShopOwnedFields() {
+        Map<String, Product> stored = storedFrom(SeedPlan.of(seed(), Map.of(), converter, NOW));
+
+        List<Product> changed = seed();
+        changed.get(1).setDescription("New copy");
+        changed.get(2).setStock(1);
+        changed.get(2).setRating(1.0);
+        SeedPlan plan = SeedPlan.of(changed, stored, converter, NOW);
+
+        assertEquals(List.of("ELEC002"), List.copyOf(plan.updates.keySet()));
+        Document changes = plan.updates.get("ELEC002");
+        assertEquals("New copy", changes.getString("description"));
+        assertFalse(changes.containsKey("stock"));
+        assertFalse(changes.containsKey("rating"));
+        assertFalse(changes.containsKey("reviewCount"));
+    }
+
+    @Test
+    public void unsetsSeedOwnedFieldsTheSeedNoLongerHas() {
+        List<Product> original = seed();
+        original.get(0).setFeatures(List.of("Titanium design"));
+        original.get(0).setColor("Natural");
+        Map<String, Product> stored = storedFrom(SeedPlan.of(original, Map.of(), converter, NOW));
+
+        // Same product without features or color: the converter leaves both out of the document
+        SeedPlan plan = SeedPlan.of(seed(), stored, converter, NOW);
+
+        assertEquals(List.of("ELEC001"), List.copyOf(plan.updates.keySet()));
+        List<String> removed = plan.unsets.get("ELEC001");
+        assertTrue(removed.containsAll(List.of("features", "color")));
+        assertFalse(removed.contains("name"));
+        // Shop-owned fields, bookkeeping and createdAt are never unset
+        for (String kept : List.of("_id", "stock", "rating", "reviewCount", "createdAt", "updatedAt", "seedHash", "isNew")) {
+            assertFalse(removed.contains(kept), kept);
+        }
+    }
+
+    @Test
+    public void deletesOnlySeededProductsThatLeftTheSeed() {
+        Map<String, Product> stored = storedFrom(SeedPlan.of(seed(), Map.of(), converter, NOW));
+        Product imported = new Product();
+        imported.setId("IMPORT1");
+        stored.put("IMPORT1", imported);
+
+        Set<String> seedIds = Set.of("ELEC001", "ELEC002");
+        assertEquals(List.of("SPORT001"), SeedPlan.stale(stored.values(), seedIds));
+    }
+
+    @Test
+    public void keepsRandomFlagsStableAndAgesOutNewArrivals() {
+        SeedPlan first = SeedPlan.of(seed(), Map.of(), converter, NOW);
+        SeedPlan second = SeedPlan.of(seed(), Map.of(), converter, NOW);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(first.inserts.get(i).get("isFeatured"), second.inserts.get(i).get("isFeatured"));
+            assertEquals(first.inserts.get(i).get("discountPrice"), second.inserts.get(i).get("discountPrice"));
+        }
+
+        // ELEC001 was created 10 days before NOW; 40 days later it is no longer new
+        Map<String, Product> stored = storedFrom(first);
+        assertTrue(stored.get("ELEC001").isNew());
+        SeedPlan later = SeedPlan.of(seed(), stored, converter, NOW + 30 * DAY);
+        assertEquals(new Document("isNew", false), later.updates.get("ELEC001"));
+    }
+
+    private static List<Product> seed() {
+        return new java.util.ArrayList<>(List.of(
+                product("ELEC001", "iPhone 15 Pro", NOW - 10 * DAY, Map.of("Display", "6.1-inch", "Storage", "256GB")),
+                product("ELEC002", "Galaxy S24", NOW - 100 * DAY, Map.of("Storage", "128GB")),
+                product("SPORT001", "Dumbbells", NOW - 50 * DAY, Map.of())));
+    }
+
+    private static Product product(String id, String name, long createdAt, Map<String, String> specs) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(100.0);
+        product.setCategory("Electronics");
+        product.setStock(50);
+        product.setRating(4.5);
+        product.setCreatedAt(createdAt);
+        product.setSpecs(specs);
+        product.setImages(List.of("https://example.com/" + id + "/1.jpg"));
+        return product;
+    }
+
+    // What the projected read would return after the inserts were written
+    private static Map<String, Product> storedFrom(SeedPlan plan) {
+        Map<String, Product> stored = new HashMap<>();
+        for (Document document : plan.inserts) {
+            Product product = new Product();
+            product.setId(document.getString("_id"));
+            product.setSeedHash(document.getString("seedHash"));
+            product.setCreatedAt(document.getLong("createdAt"));
+            product.setNew(document.getBoolean("isNew"));
+            stored.put(product.getId(), product);
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductMongoEventListenerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private final ProductMongoEventListener listener;
+
+    @SuppressWarnings("unchecked")
+    public ProductMongoEventListenerTest() {
+        ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(mongoTemplate);
+        listener = new ProductMongoEventListener(event -> events.add((ProductChangedEvent) event), provider);
+    }
+
+    @Test
+    public void testNewProductsAreStampedWithoutALookup() {
+        Product product = product("NEW1", 0);
+        Document document = new Document("_id", "NEW1");
+
+        save(product, document);
+
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(Product.class));
+        assertTrue(product.getCreatedAt() > 0);
+        assertEquals(product.getCreatedAt(), document.get("createdAt"));
+        assertNull(events.get(0).getPrevious());
+    }
+
+    @Test
+    public void testUpdatesCarryTheStoredGrouping() {
+        Product stored = product("ELEC001", 1);
+        stored.setCategory("Electronics");
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(stored);
+
+        save(product("ELEC001", 1), new Document());
+
+        assertEquals("Electronics", events.get(0).getPrevious().getCategory());
+    }
+
+    @Test
+    public void testAFailedSaveLeavesNothingForTheNextOne() {
+        Product stored = product("ELEC001", 1);
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(stored);
+
+        // The write fails between the before- and after-event
+        Product failed = product("ELEC001", 1);
+        listener.onBeforeConvert(new BeforeConvertEvent<>(failed, "products"));
+        listener.onBeforeSave(new BeforeSaveEvent<>(failed, new Document(), "products"));
+
+        save(product("ELEC001", 0), new Document());
+        assertNull(events.get(0).getPrevious());
+    }
+
+    private void save(Product product, Document document) {
+        listener.onBeforeConvert(new BeforeConvertEvent<>(product, "products"));
+        listener.onBeforeSave(new BeforeSaveEvent<>(product, document, "products"));
+        listener.onAfterSave(new AfterSaveEvent<>(product, document, "products"));
+    }
+
+    private static Product product(String id, long createdAt) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
+}
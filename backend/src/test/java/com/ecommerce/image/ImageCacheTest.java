@@ -0,0 +1,83 @@
+package com.ecommerce.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImageCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void servesRepeatHitsFromOffHeapMemory() throws IOException {
+        ImageCache cache = new ImageCache(1024, 512, 1, registry);
+        Path file = Files.writeString(dir.resolve("1.jpg"), "image bytes");
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        ByteBuffer first = cache.get(file, 11, modified);
+        ByteBuffer second = cache.get(file, 11, modified);
+        assertTrue(second.isDirect());
+        assertTrue(second.isReadOnly());
+        assertEquals("image bytes", StandardCharsets.UTF_8.decode(second).toString());
+        // Callers get independent positions over the same memory
+        assertEquals(11, first.remaining());
+
+        cache.cleanUp();
+        assertEquals(11, cache.residentBytes());
+        assertEquals(11.0, registry.get("images.cache.resident.bytes").gauge().value());
+        assertEquals(0.5, registry.get("images.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    public void reloadsChangedFiles() throws IOException {
+        ImageCache cache = new ImageCache(1024, 512, 1, registry);
+        Path file = Files.writeString(dir.resolve("1.jpg"), "old");
+        cache.get(file, 3, 1000);
+
+        Files.writeString(file, "newer");
+        ByteBuffer reloaded = cache.get(file, 5, 2000);
+        assertEquals("newer", StandardCharsets.UTF_8.decode(reloaded).toString());
+        cache.cleanUp();
+        assertEquals(5, cache.residentBytes());
+    }
+
+    @Test
+    public void loadsOnlyFilesAskedForOftenEnough() throws IOException {
+        ImageCache cache = new ImageCache(1024, 512, 3, registry);
+        Path file = Files.writeString(dir.resolve("1.jpg"), "image bytes");
+
+        assertNull(cache.get(file, 11, 1000));
+        assertNull(cache.get(file, 11, 1000));
+        assertNull(cache.getIfResident(file, 11, 1000));
+        cache.cleanUp();
+        assertEquals(0, cache.residentBytes());
+
+        assertEquals("image bytes", StandardCharsets.UTF_8.decode(cache.get(file, 11, 1000)).toString());
+        assertEquals(11, cache.getIfResident(file, 11, 1000).remaining());
+        assertNull(cache.getIfResident(file, 11, 2000));
+    }
+
+    @Test
+    public void skipsFilesAboveTheEntryLimit() throws IOException {
+        ImageCache cache = new ImageCache(1024, 4, 1, registry);
+        Path file = Files.writeString(dir.resolve("1.jpg"), "too large");
+
+        assertNull(cache.get(file, 9, 1000));
+        // Attributes that no longer match the file are not cached either
+        assertNull(cache.get(Files.writeString(dir.resolve("2.jpg"), "abc"), 2, 1000));
+        assertEquals(0, cache.residentBytes());
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.image;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImageDerivativesTest {
+
+    @TempDir
+    Path root;
+
+    private ImageDerivatives derivatives;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(root.resolve("Products/Electronics/Phone X"));
+        write(root.resolve("Products/Electronics/Phone X/1.jpg"), 1000, 750, false, "jpg");
+        write(root.resolve("Products/Electronics/Phone X/2.png"), 600, 600, true, "png");
+        write(root.resolve("Products/Electronics/Phone X/3.jpg"), 150, 150, false, "jpg");
+        Files.writeString(root.resolve("Products/Electronics/Phone X/4.jpg"), "not an image");
+        derivatives = new ImageDerivatives(root.resolve("Products").toString(), root.resolve("cache").toString(),
+                new int[]{800, 200, 400}, 0.8f, false);
+    }
+
+    @Test
+    public void picksTheSmallestWidthCoveringTheRequest() throws IOException {
+        Path source = derivatives.source("Electronics/Phone X/1.jpg").orElseThrow();
+
+        Optional<ImageDerivatives.Variant> variant = derivatives.resolve(source, 300, "image/avif,image/webp,*/*");
+        assertTrue(variant.isPresent());
+        assertEquals(MediaType.IMAGE_JPEG, variant.get().mediaType());
+        BufferedImage image = ImageIO.read(variant.get().path().toFile());
+        assertEquals(400, image.getWidth());
+        assertEquals(300, image.getHeight());
+        assertTrue(Files.size(variant.get().path()) < Files.size(source));
+
+        // Every width was written by the same render
+        assertEquals(200, ImageIO.read(derivatives.resolve(source, 1, null).orElseThrow().path().toFile()).getWidth());
+        assertEquals(800, ImageIO.read(derivatives.resolve(source, 800, null).orElseThrow().path().toFile()).getWidth());
+    }
+
+    @Test
+    public void servesTheOriginalWhenNoSmallerVariantExists() {
+        Path large = derivatives.source("Electronics/Phone X/1.jpg").orElseThrow();
+        Path small = derivatives.source("Electronics/Phone X/3.jpg").orElseThrow();
+        Path broken = derivatives.source("Electronics/Phone X/4.jpg").orElseThrow();
+
+        assertTrue(derivatives.resolve(large, 1200, null).isEmpty());
+        assertTrue(derivatives.resolve(small, 200, null).isEmpty());
+        assertTrue(derivatives.resolve(broken, 200, null).isEmpty());
+    }
+
+    @Test
+    public void keepsTransparencyAsPng() throws IOException {
+        Path source = derivatives.source("Electronics/Phone X/2.png").orElseThrow();
+
+        ImageDerivatives.Variant variant = derivatives.resolve(source, 400, "image/*").orElseThrow();
+        assertEquals(MediaType.IMAGE_PNG, variant.mediaType());
+        assertTrue(ImageIO.read(variant.path().toFile()).getColorModel().hasAlpha());
+    }
+
+    @Test
+    public void regeneratesWhenTheSourceChanges() throws IOException {
+        Path source = derivatives.source("Electronics/Phone X/1.jpg").orElseThrow();
+        derivatives.resolve(source, 400, null).orElseThrow();
+
+        write(source, 500, 500, false, "jpg");
+        Files.setLastModifiedTime(source, java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        assertEquals(400, ImageIO.read(derivatives.resolve(source, 400, null).orElseThrow().path().toFile()).getHeight());
+        assertTrue(derivatives.resolve(source, 800, null).isEmpty());
+    }
+
+    @Test
+    public void rejectsPathsOutsideTheRoot() {
+        assertTrue(derivatives.source("../cache/anything.jpg").isEmpty());
+        assertTrue(derivatives.source("Electronics/Phone X/missing.jpg").isEmpty());
+    }
+
+    @Test
+    public void decodesWebpSources() {
+        // The shipped catalog is half WebP; those need the ImageIO WebP reader
+        assertTrue(ImageIO.getImageReadersByMIMEType("image/webp").hasNext());
+    }
+
+    private static void write(Path path, int width, int height, boolean alpha, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(30, 120, 200, alpha ? 128 : 255));
+        graphics.fillOval(0, 0, width, height);
+        graphics.dispose();
+        ImageIO.write(image, format, path.toFile());
+    }
+}
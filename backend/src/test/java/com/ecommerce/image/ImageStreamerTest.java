@@ -0,0 +1,184 @@
+package com.ecommerce.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ImageStreamerTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private byte[] bytes;
+    // Caching disabled here, so every request exercises the disk path
+    private final ImageStreamer streamer = new ImageStreamer(1024, new ImageCache(0, 0, 1, new SimpleMeterRegistry()));
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        bytes = new byte[4096];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        file = Files.write(dir.resolve("1.jpg"), bytes);
+    }
+
+    @Test
+    public void servesTheWholeFile() throws IOException {
+        MockHttpServletResponse response = stream(new MockHttpServletRequest("GET", "/"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(4096, response.getContentLength());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals(bytes, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void servesASingleRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/4096", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(100, response.getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), response.getContentAsByteArray());
+
+        request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-10");
+        response = stream(request);
+        assertEquals("bytes 4086-4095/4096", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 4086, 4096), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void rejectsUnsatisfiableRanges() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5000-");
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */4096", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void ignoresTheRangeWhenIfRangeIsStale() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(4096, response.getContentLength());
+
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertEquals(206, stream(request).getStatus());
+    }
+
+    @Test
+    public void answersNotModified() throws IOException {
+        String etag = stream(new MockHttpServletRequest("GET", "/")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = stream(request);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void handsLargeBodiesToSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(ImageStreamer.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-2999");
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(ImageStreamer.SENDFILE_FILENAME));
+        assertEquals(1000L, request.getAttribute(ImageStreamer.SENDFILE_START));
+        assertEquals(3000L, request.getAttribute(ImageStreamer.SENDFILE_END));
+
+        // Small ranges are cheaper to write directly
+        request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(ImageStreamer.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-99");
+        assertEquals(100, stream(request).getContentAsByteArray().length);
+        assertNull(request.getAttribute(ImageStreamer.SENDFILE_FILENAME));
+    }
+
+    @Test
+    public void servesRangesFromTheCacheOnlyOnceResident() throws IOException {
+        ImageCache cache = new ImageCache(1 << 20, 1 << 20, 2, new SimpleMeterRegistry());
+        ImageStreamer cached = new ImageStreamer(1024, cache);
+
+        // Ranges never load the file, however often they are asked for
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(Arrays.copyOfRange(bytes, 10, 20), range(cached, "bytes=10-19").getContentAsByteArray());
+        }
+        cache.cleanUp();
+        assertEquals(0, cache.residentBytes());
+
+        // The first whole-file request streams from disk, the second is admitted
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            cached.stream(new MockHttpServletRequest("GET", "/"), response, file, MediaType.IMAGE_JPEG);
+            assertArrayEquals(bytes, response.getContentAsByteArray());
+        }
+        cache.cleanUp();
+        assertEquals(4096, cache.residentBytes());
+
+        MockHttpServletResponse response = range(cached, "bytes=10-19");
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(bytes, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void restatsFilesTheIndexMayHaveMissedChanging() throws IOException {
+        // As indexed before the file was replaced by the current 4096 bytes
+        ProductImageIndex.ImageFile stale = new ProductImageIndex.ImageFile(file, 10, 1000, MediaType.IMAGE_JPEG, "0123456789");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        streamer.stream(new MockHttpServletRequest("GET", "/"), response, stale);
+
+        assertEquals(4096, response.getContentLength());
+        assertEquals(ImageStreamer.etag(4096, Files.getLastModifiedTime(file).toMillis()), response.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(bytes, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void answersMissingFilesWithNotFound() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        streamer.stream(new MockHttpServletRequest("GET", "/"), response, dir.resolve("missing.jpg"), MediaType.IMAGE_JPEG);
+        assertEquals(404, response.getStatus());
+    }
+
+    private MockHttpServletResponse range(ImageStreamer streamer, String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, range);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        streamer.stream(request, response, file, MediaType.IMAGE_JPEG);
+        return response;
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        streamer.stream(request, response, file, MediaType.IMAGE_JPEG);
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the image paths as a client sees them, through an embedded Tomcat: the old
+ * FileSystemResource copy through a heap buffer, and ImageStreamer writing from the servlet
+ * (transferTo into the response), through the connector's sendfile, and from the off-heap cache.
+ * Opt-in: mvn test -Dtest=ImageStreamingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ImageStreamingBenchmark {
+
+    private static final long TOTAL_BYTES = 2L * 1024 * 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void compareServingPaths() throws Exception {
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (int size : new int[]{256 * 1024, 4 * 1024 * 1024}) {
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            files.put(size / 1024 + " KB", Files.write(dir.resolve(size + ".jpg"), content));
+        }
+
+        Map<String, ImageStreamer> streamers = new LinkedHashMap<>();
+        streamers.put("servlet", new ImageStreamer(Long.MAX_VALUE, new ImageCache(0, 0, 1, new SimpleMeterRegistry())));
+        streamers.put("sendfile", new ImageStreamer(49152, new ImageCache(0, 0, 1, new SimpleMeterRegistry())));
+        streamers.put("cache", new ImageStreamer(49152, new ImageCache(64 << 20, 8 << 20, 1, new SimpleMeterRegistry())));
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(dir.resolve("tomcat").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        tomcat.getService().addConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "images", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                String[] parts = request.getRequestURI().split("/");
+                Path file = dir.resolve(parts[2]);
+                if ("heap".equals(parts[1])) {
+                    // What the resource message converter did before ImageStreamer
+                    response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+                    response.setContentLengthLong(Files.size(file));
+                    try (InputStream in = Files.newInputStream(file)) {
+                        StreamUtils.copy(in, response.getOutputStream());
+                    }
+                } else {
+                    streamers.get(parts[1]).stream(request, response, file, MediaType.IMAGE_JPEG);
+                }
+            }
+        });
+        context.addServletMappingDecoded("/*", "images");
+        tomcat.start();
+
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://127.0.0.1:" + connector.getLocalPort() + "/";
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                String name = file.getValue().getFileName().toString();
+                long size = Files.size(file.getValue());
+                int rounds = (int) (TOTAL_BYTES / size);
+
+                Map<String, Double> throughput = new LinkedHashMap<>();
+                for (String path : new String[]{"heap", "servlet", "sendfile", "cache"}) {
+                    URI uri = URI.create(base + path + "/" + name);
+                    // Warm up, which also admits the file into the cache
+                    run(client, uri, size, rounds / 10);
+                    throughput.put(path, run(client, uri, size, rounds));
+                }
+
+                double heap = throughput.get("heap");
+                StringBuilder line = new StringBuilder(file.getKey() + ":");
+                throughput.forEach((path, mbps) -> line.append(String.format(" %s %.0f MB/s (%.2fx)", path, mbps, mbps / heap)));
+                System.out.println(line);
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static double run(HttpClient client, URI uri, long size, int rounds) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        long started = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                assertEquals(size, body.transferTo(OutputStream.nullOutputStream()));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return (double) rounds * size / (1024 * 1024) / seconds;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.image;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class ProductImageIndexTest {
+
+    @TempDir
+    Path root;
+
+    private ProductImageIndex index;
+    private ImageUrlRewriter rewriter;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(root.resolve("Electronics/iPhone 15 Pro"));
+        Files.writeString(root.resolve("Electronics/iPhone 15 Pro/1.jpg"), "front");
+        Files.writeString(root.resolve("Electronics/iPhone 15 Pro/2.webp"), "back");
+        index = new ProductImageIndex(root.toString(), false, 0, event -> { });
+        index.scan();
+        rewriter = new ImageUrlRewriter(null, index, null);
+    }
+
+    @Test
+    public void hashesEveryImage() {
+        String hash = index.hash("Electronics/iPhone 15 Pro/1.jpg").orElseThrow();
+        assertEquals(10, hash.length());
+        assertEquals("1." + hash + ".jpg", index.hashedName("Electronics/iPhone 15 Pro/1.jpg").orElseThrow());
+        assertNotEquals(hash, index.hash("Electronics/iPhone 15 Pro/2.webp").orElseThrow());
+        assertTrue(index.hashedName("Electronics/iPhone 15 Pro/3.jpg").isEmpty());
+    }
+
+    @Test
+    public void precomputesServingMetadata() {
+        ProductImageIndex.ImageFile image = index.find("Electronics/iPhone 15 Pro/2.webp").orElseThrow();
+        assertEquals(4, image.size());
+        assertEquals("image/webp", image.contentType().toString());
+        assertEquals(root.resolve("Electronics/iPhone 15 Pro/2.webp"), image.path());
+        assertTrue(index.find("Electronics/iPhone 15 Pro/9.jpg").isEmpty());
+        assertTrue(index.find("../secret.jpg").isEmpty());
+    }
+
+    @Test
+    public void skipsUnreadableFilesAndKeepsTheRest() throws IOException {
+        Path locked = root.resolve("Electronics/iPhone 15 Pro/3.jpg");
+        Files.writeString(locked, "side");
+        Files.setPosixFilePermissions(locked, Set.of());
+        // Root reads the file regardless of its permissions
+        assumeFalse(Files.isReadable(locked));
+
+        ProductImageIndex fresh = new ProductImageIndex(root.toString(), false, 0, event -> { });
+        fresh.scan();
+
+        assertTrue(fresh.find("Electronics/iPhone 15 Pro/3.jpg").isEmpty());
+        assertTrue(fresh.hash("Electronics/iPhone 15 Pro/1.jpg").isPresent());
+        assertTrue(fresh.hash("Electronics/iPhone 15 Pro/2.webp").isPresent());
+    }
+
+    @Test
+    public void groupsImagesByFolderInNumberedOrder() throws IOException {
+        Files.writeString(root.resolve("Electronics/iPhone 15 Pro/10.jpg"), "detail");
+        Files.writeString(root.resolve("Electronics/iPhone 15 Pro/cover.png"), "cover");
+        index.scan();
+
+        assertEquals(List.of("Electronics/iPhone 15 Pro/1.jpg", "Electronics/iPhone 15 Pro/2.webp",
+                        "Electronics/iPhone 15 Pro/10.jpg", "Electronics/iPhone 15 Pro/cover.png"),
+                index.byDirectory().get("Electronics/iPhone 15 Pro"));
+    }
+
+    @Test
+    public void followsTheTreeThroughTheWatchService() throws Exception {
+        CountDownLatch announced = new CountDownLatch(1);
+        ProductImageIndex watched = new ProductImageIndex(root.toString(), true, 50, event -> {
+            if (event instanceof ImageFilesChangedEvent) {
+                announced.countDown();
+            }
+        });
+        watched.start();
+        try {
+            Files.createDirectories(root.resolve("Fashion/Tee"));
+            Files.writeString(root.resolve("Fashion/Tee/1.jpg"), "tee");
+            Files.delete(root.resolve("Electronics/iPhone 15 Pro/2.webp"));
+
+            assertTrue(announced.await(10, TimeUnit.SECONDS));
+            awaitUntil(() -> watched.find("Fashion/Tee/1.jpg").isPresent());
+            assertTrue(watched.find("Electronics/iPhone 15 Pro/2.webp").isEmpty());
+        } finally {
+            watched.shutdown();
+        }
+    }
+
+    @Test
+    public void parsesHashedNames() {
+        ProductImageIndex.Hashed hashed = ProductImageIndex.parse("Electronics/iPhone+15+Pro/1.0123456789.jpg").orElseThrow();
+        assertEquals("Electronics/iPhone+15+Pro/1.jpg", hashed.path());
+        assertEquals("0123456789", hashed.hash());
+        assertFalse(index.isCurrent(hashed));
+
+        assertTrue(ProductImageIndex.parse("Electronics/iPhone 15 Pro/1.jpg").isEmpty());
+        assertTrue(ProductImageIndex.parse("Electronics/.0123456789.jpg").isEmpty());
+    }
+
+    private static void awaitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void rewritesLocalUrlsToTheCurrentHash() throws IOException {
+        String hash = index.hash("Electronics/iPhone 15 Pro/1.jpg").orElseThrow();
+        String plain = "/products/Electronics/iPhone+15+Pro/1.jpg";
+        String current = "/products/Electronics/iPhone+15+Pro/1." + hash + ".jpg";
+
+        assertEquals(current, rewriter.rewrite(plain));
+        assertEquals(current, rewriter.rewrite(current));
+        assertEquals("/products/Electronics/iPhone%2015%20Pro/1." + hash + ".jpg",
+                rewriter.rewrite("/products/Electronics/iPhone%2015%20Pro/1.jpg"));
+
+        // Edited file: the old hash moves to the new one
+        Files.writeString(root.resolve("Electronics/iPhone 15 Pro/1.jpg"), "front, retouched");
+        index.scan();
+        String moved = rewriter.rewrite(current);
+        assertNotEquals(current, moved);
+        assertTrue(index.isCurrent(ProductImageIndex.parse(moved.substring("/products/".length()).replace('+', ' ')).orElseThrow()));
+
+        // Unknown files and external URLs are left alone
+        assertEquals("/products/Electronics/iPhone+15+Pro/9.jpg", rewriter.rewrite("/products/Electronics/iPhone+15+Pro/9.jpg"));
+        assertEquals("https://placehold.co/800x800", rewriter.rewrite("https://placehold.co/800x800"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CatalogImporterTest {
+    private static final int WORKERS = 2;
+
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    private final CatalogImporter importer = new CatalogImporter(
+            Validation.buildDefaultValidatorFactory().getValidator(), events::add, meterRegistry, 3, WORKERS);
+
+    @AfterEach
+    public void shutdown() {
+        importer.shutdown();
+    }
+
+    @Test
+    public void readsMongoExportArraysAndNdjson() throws IOException {
+        String record = "{\"_id\": \"ELEC001\", \"name\": \"iPhone 15 Pro\", \"price\": 999.99, "
+                + "\"createdAt\": {\"$numberLong\": \"1754763566245\"}, \"_class\": \"com.ecommerce.model.Product\"}";
+
+        for (String json : List.of("[" + record + ", " + record + "]", record + "\n" + record + "\n")) {
+            try (ProductJsonReader reader = reader(json)) {
+                Product product = reader.next();
+                assertEquals("ELEC001", product.getId());
+                assertEquals(999.99, product.getPrice());
+                assertEquals(1754763566245L, product.getCreatedAt());
+                reader.next();
+                assertEquals(false, reader.hasNext());
+                assertEquals(2, reader.position());
+            }
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRecordsAndKeepsGoing() throws IOException {
+        String json = "[" + String.join(",",
+                product("A1", 10.0, "https://example.com/a.jpg"),
+                product("A2", 0.0, "https://example.com/b.jpg"),
+                product("A3", 10.5, "ftp://example.com/c.jpg"),
+                product("A4", 10.5, "/products/Sports/Ball/1.jpg"),
+                "{\"_id\": \"A5\", \"name\": \"Broken\", \"price\": \"ten\"}",
+                "{\"name\": \"No id\", \"price\": 5}") + "]";
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+        ImportResult result;
+        try (ProductJsonReader reader = reader(json)) {
+            result = importer.importProducts(reader, (batch, now) -> {
+                batch.forEach(product -> written.add(product.getId()));
+                return batch.size();
+            });
+        }
+
+        assertEquals(6, result.getRead());
+        assertEquals(2, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of("A1", "A4"), written.stream().sorted().toList());
+        assertEquals(4, result.getErrors().size());
+        assertTrue(result.getErrors().stream().anyMatch(error -> error.contains("A2") && error.contains("price")));
+        assertEquals(4.0, meterRegistry.get("catalog.import.records").tag("result", "rejected").counter().count());
+        assertEquals(1, events.stream().filter(event -> event instanceof ProductChangedEvent).count());
+    }
+
+    @Test
+    public void writesFixedBatchesWithBoundedConcurrency() {
+        List<Product> products = IntStream.range(0, 20).mapToObj(i -> valid("P" + i)).toList();
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger maxWriting = new AtomicInteger();
+
+        ImportResult result = importer.importProducts(products.iterator(), (batch, now) -> {
+            maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sizes.add(batch.size());
+            writing.decrementAndGet();
+            return 0;
+        });
+
+        assertEquals(20, result.getAccepted());
+        assertEquals(List.of(2, 3, 3, 3, 3, 3, 3), sizes.stream().sorted().toList());
+        assertTrue(maxWriting.get() <= WORKERS);
+        // Nothing changed, so nothing to reload
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void countsFailedBatchesAndWaitsForWritesOnMalformedJson() throws IOException {
+        String json = "[" + IntStream.range(0, 4).mapToObj(i -> product("P" + i, 10.0, "https://example.com/p.jpg"))
+                .collect(Collectors.joining(",")) + ", {\"_id\": ";
+        AtomicInteger batches = new AtomicInteger();
+
+        try (ProductJsonReader reader = reader(json)) {
+            assertThrows(UncheckedIOException.class, () -> importer.importProducts(reader, (batch, now) -> {
+                batches.incrementAndGet();
+                throw new IllegalStateException("write refused");
+            }));
+        }
+        // The full batch read before the error was still handed to a writer before the import returned
+        assertEquals(1, batches.get());
+        assertEquals(3.0, meterRegistry.get("catalog.import.records").tag("result", "failed").counter().count());
+        assertEquals(false, importer.isRunning());
+    }
+
+    @Test
+    public void partlyFailedBatchesReloadWithoutCountingAsChanged() {
+        MongoBulkWriteException failure = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)), null, new ServerAddress(), Set.of());
+
+        ImportResult result = importer.importProducts(List.of(valid("P1"), valid("P2")).iterator(), (batch, now) -> {
+            throw new BulkOperationException("write failed", failure);
+        });
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getFailed());
+        assertEquals(0, result.getChanged());
+        assertEquals(1, events.stream().filter(event -> event instanceof ProductChangedEvent).count());
+    }
+
+    private ProductJsonReader reader(String json) throws IOException {
+        return new ProductJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), converter);
+    }
+
+    private static String product(String id, double price, String image) {
+        return "{\"_id\": \"" + id + "\", \"name\": \"Product " + id + "\", \"category\": \"Sports\", "
+                + "\"price\": " + price + ", \"stock\": 5, \"rating\": 4.5, \"images\": [\"" + image + "\"]}";
+    }
+
+    private static Product valid(String id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory("Sports");
+        product.setPrice(19.99);
+        return product;
+    }
+}
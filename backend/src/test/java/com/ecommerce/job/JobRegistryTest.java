@@ -0,0 +1,82 @@
+package com.ecommerce.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JobRegistryTest {
+    private final JobRegistry registry = new JobRegistry(2, 2);
+
+    @AfterEach
+    public void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void reportsProgressWhileRunningAndTheSummaryAfter() throws Exception {
+        CountDownLatch halfway = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Job job = registry.submit("fix-images", running -> {
+            running.setTotal(4);
+            running.processed(2);
+            running.changed(1);
+            running.error("P2: no images");
+            halfway.countDown();
+            proceed.await();
+            running.processed(2);
+            return "done";
+        });
+
+        assertTrue(halfway.await(5, TimeUnit.SECONDS));
+        JobStatus status = registry.find(job.getId()).orElseThrow().status();
+        assertEquals(Job.State.RUNNING, status.getState());
+        assertEquals(50.0, status.getPercent());
+        assertEquals(1, status.getErrorCount());
+
+        // A second submission of the same type joins the running job
+        assertSame(job, registry.submit("fix-images", running -> "never runs"));
+
+        proceed.countDown();
+        JobStatus finished = awaitFinished(job);
+        assertEquals(Job.State.SUCCEEDED, finished.getState());
+        assertEquals(4, finished.getProcessed());
+        assertEquals(100.0, finished.getPercent());
+        assertEquals("done", finished.getMessage());
+        assertEquals(List.of("P2: no images"), finished.getErrors());
+    }
+
+    @Test
+    public void recordsFailuresAndKeepsOnlyRecentHistory() throws Exception {
+        Job failed = registry.submit("fix-images", running -> {
+            throw new IllegalStateException("mongo down");
+        });
+        JobStatus status = awaitFinished(failed);
+        assertEquals(Job.State.FAILED, status.getState());
+        assertEquals("mongo down", status.getMessage());
+
+        Job second = registry.submit("fix-images", running -> "ok");
+        assertNotEquals(failed.getId(), second.getId());
+        awaitFinished(second);
+        awaitFinished(registry.submit("fix-images", running -> "ok"));
+        awaitFinished(registry.submit("fix-images", running -> "ok"));
+
+        assertEquals(2, registry.recent().size());
+        assertTrue(registry.find(failed.getId()).isEmpty());
+    }
+
+    private static JobStatus awaitFinished(Job job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.status();
+    }
+}
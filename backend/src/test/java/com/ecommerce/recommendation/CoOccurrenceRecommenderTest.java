@@ -0,0 +1,125 @@
+package com.ecommerce.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoOccurrenceRecommenderTest {
+
+    @TempDir
+    Path dir;
+
+    private CoOccurrenceRecommender recommender(Path log) {
+        return recommender(new InteractionLog(log.toString(), 0), 100);
+    }
+
+    private static CoOccurrenceRecommender recommender(InteractionLog log, int maxUsers) {
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(log, 100, maxUsers);
+        recommender.load();
+        return recommender;
+    }
+
+    private static Interaction interaction(String user, String product, InteractionType type) {
+        return new Interaction(user, product, type, 0);
+    }
+
+    @Test
+    public void testRecommendsWhatSimilarUsersInteractedWith() {
+        CoOccurrenceRecommender recommender = recommender(dir.resolve("interactions.ndjson"));
+        for (String user : List.of("u1", "u2", "u3")) {
+            recommender.record(interaction(user, "PHONE", InteractionType.VIEW));
+            recommender.record(interaction(user, "CASE", InteractionType.CART));
+        }
+        recommender.record(interaction("u1", "CHARGER", InteractionType.VIEW));
+        recommender.record(interaction("u4", "PHONE", InteractionType.VIEW));
+
+        Recommendation forUser = recommender.forUser("u4", 5);
+        assertEquals("CASE", forUser.getProductIds().get(0));
+        assertFalse(forUser.getProductIds().contains("PHONE"));
+        assertEquals(CoOccurrenceRecommender.CO_OCCURRENCE, forUser.getAlgorithm());
+
+        Recommendation forProduct = recommender.forProduct("PHONE", 5);
+        assertEquals(List.of("CASE", "CHARGER"), forProduct.getProductIds());
+    }
+
+    @Test
+    public void testUnknownUserFallsBackToPopularity() {
+        CoOccurrenceRecommender recommender = recommender(dir.resolve("interactions.ndjson"));
+        recommender.record(interaction("u1", "A", InteractionType.ORDER));
+        recommender.record(interaction("u2", "B", InteractionType.VIEW));
+
+        Recommendation recommendation = recommender.forUser("nobody", 5);
+        assertEquals(CoOccurrenceRecommender.POPULARITY, recommendation.getAlgorithm());
+        assertEquals(List.of("A", "B"), recommendation.getProductIds());
+    }
+
+    @Test
+    public void testModelIsRebuiltFromTheLog() throws Exception {
+        Path log = dir.resolve("interactions.ndjson");
+        CoOccurrenceRecommender first = recommender(log);
+        first.record(interaction("u1", "A", InteractionType.VIEW));
+        first.record(interaction("u1", "B", InteractionType.VIEW));
+        Files.writeString(log, "{not json\n", java.nio.file.StandardOpenOption.APPEND);
+
+        CoOccurrenceRecommender replayed = recommender(log);
+        assertEquals(List.of("B"), replayed.forProduct("A", 5).getProductIds());
+        assertTrue(replayed.forProduct("A", 5).getConfidence() > 0);
+    }
+
+    @Test
+    public void testOnlyTheMostRecentlyActiveUsersKeepAHistory() {
+        CoOccurrenceRecommender recommender = recommender(new InteractionLog(dir.resolve("interactions.ndjson").toString(), 0), 2);
+        recommender.record(interaction("u1", "A", InteractionType.VIEW));
+        recommender.record(interaction("u1", "B", InteractionType.VIEW));
+        recommender.record(interaction("u2", "A", InteractionType.VIEW));
+        recommender.record(interaction("u3", "C", InteractionType.VIEW));
+        // Touching u2 again makes u1 the least recently active
+        recommender.record(interaction("u2", "C", InteractionType.VIEW));
+        recommender.record(interaction("u4", "C", InteractionType.VIEW));
+
+        assertEquals(CoOccurrenceRecommender.POPULARITY, recommender.forUser("u1", 5).getAlgorithm());
+        assertEquals(CoOccurrenceRecommender.CO_OCCURRENCE, recommender.forUser("u2", 5).getAlgorithm());
+        // The evicted user's co-occurrences are still in the model
+        assertTrue(recommender.forProduct("A", 5).getProductIds().contains("B"));
+    }
+
+    @Test
+    public void testLogRollsOverAndReplaysBothFiles() throws Exception {
+        Path log = dir.resolve("interactions.ndjson");
+        InteractionLog interactionLog = new InteractionLog(log.toString(), 200);
+        CoOccurrenceRecommender first = recommender(interactionLog, 100);
+        for (int i = 0; i < 10; i++) {
+            first.record(interaction("u" + i, "A", InteractionType.VIEW));
+            first.record(interaction("u" + i, "B", InteractionType.VIEW));
+        }
+        interactionLog.close();
+
+        assertTrue(Files.size(log) <= 200);
+        assertTrue(Files.exists(dir.resolve("interactions.ndjson.1")));
+        // Only the last two files' worth of interactions is kept, oldest first
+        List<Interaction> replayed = new java.util.ArrayList<>();
+        new InteractionLog(log.toString(), 200).replay(replayed::add);
+        assertTrue(replayed.size() < 20);
+        assertEquals("u9", replayed.get(replayed.size() - 1).getUserId());
+        assertEquals(List.of("B"), recommender(log).forProduct("A", 5).getProductIds());
+    }
+
+    @Test
+    public void testRowsArePrunedToTheStrongestEntries() {
+        IntFloatHashMap row = new IntFloatHashMap();
+        for (int i = 0; i < 1_000; i++) {
+            row.addTo(i, i);
+        }
+        row.retainTop(10);
+        assertEquals(10, row.size());
+        assertEquals(999f, row.get(999));
+        assertEquals(0f, row.get(989));
+    }
+}
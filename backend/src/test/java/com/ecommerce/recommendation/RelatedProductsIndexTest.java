@@ -0,0 +1,238 @@
+package com.ecommerce.recommendation;
+
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RelatedProductsIndexTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private RelatedProductsIndex index;
+
+    @AfterEach
+    public void tearDown() {
+        if (index != null) {
+            index.shutdown();
+        }
+    }
+
+    private static Product product(String id, String category, String subcategory, String brand, double price, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setSubcategory(subcategory);
+        product.setBrand(brand);
+        product.setPrice(price);
+        product.setName(name);
+        return product;
+    }
+
+    private static List<Product> catalog() {
+        return List.of(
+                product("PHONE1", "Electronics", "Smartphones", "Apple", 999, "iPhone 15 Pro"),
+                product("PHONE2", "Electronics", "Smartphones", "Apple", 899, "iPhone 15"),
+                product("PHONE3", "Electronics", "Smartphones", "Samsung", 949, "Galaxy S24"),
+                product("LAPTOP", "Electronics", "Laptops", "Dell", 1500, "XPS 13"),
+                product("SHIRT", "Fashion", "Shirts", "Uniqlo", 30, "Linen Shirt"));
+    }
+
+    private List<String> related(String productId, int limit) {
+        return index.related(productId, limit).orElseThrow().stream().map(ProductCard::getId).toList();
+    }
+
+    @Test
+    public void testRanksSimilarProductsOfTheSameCategory() {
+        index = new RelatedProductsIndex(mongoTemplate, 2, 10);
+        index.rebuild(catalog());
+
+        assertEquals(List.of("PHONE2", "PHONE3"), related("PHONE1", 5));
+        assertEquals(List.of("PHONE2"), related("PHONE1", 1));
+        // Never across categories
+        assertTrue(related("SHIRT", 5).isEmpty());
+        assertEquals(Optional.empty(), index.related("UNKNOWN", 5));
+    }
+
+    @Test
+    public void testSaveEntersAndLeavesOtherProductsLists() {
+        index = new RelatedProductsIndex(mongoTemplate, 2, 10);
+        index.rebuild(catalog());
+        assertEquals(List.of("PHONE2", "PHONE3"), related("PHONE1", 5));
+
+        // A closer match displaces the weakest entry of a full list
+        index.update(product("PHONE4", "Electronics", "Smartphones", "Apple", 999, "iPhone 15 Pro Max"));
+        assertEquals("PHONE4", related("PHONE1", 5).get(0));
+        assertFalse(related("PHONE1", 5).contains("PHONE3"));
+
+        // Moving it out of the category refills the list it left from the rest of the bucket
+        index.update(product("PHONE4", "Fashion", "Shirts", "Uniqlo", 25, "Linen Shirt Slim"));
+        assertEquals(List.of("PHONE2", "PHONE3"), related("PHONE1", 5));
+        assertEquals(List.of("SHIRT"), related("PHONE4", 5));
+        assertEquals(List.of("PHONE4"), related("SHIRT", 5));
+
+        // A delete takes its row out of every list before the row can be reused
+        index.remove("PHONE2");
+        index.update(product("PHONE5", "Fashion", "Shirts", "Uniqlo", 35, "Oxford Shirt"));
+        assertEquals(List.of("PHONE3", "LAPTOP"), related("PHONE1", 5));
+        assertFalse(related("SHIRT", 5).contains("PHONE2"));
+        assertEquals(Optional.empty(), index.related("PHONE2", 5));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchAFullRebuild() {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        index.rebuild(catalog().subList(0, 2));
+        for (Product product : catalog().subList(2, 5)) {
+            index.update(product);
+        }
+
+        RelatedProductsIndex rebuilt = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        try {
+            rebuilt.rebuild(catalog());
+            for (Product product : catalog()) {
+                List<String> expected = rebuilt.related(product.getId(), 5).orElseThrow().stream().map(ProductCard::getId).toList();
+                assertEquals(expected, related(product.getId(), 5), product.getId());
+            }
+        } finally {
+            rebuilt.shutdown();
+        }
+    }
+
+    @Test
+    public void testLastOfASaveAndDeleteWithinTheDebounceWins() {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        index.rebuild(catalog());
+
+        Product phone = product("PHONE4", "Electronics", "Smartphones", "Apple", 999, "iPhone 15 Pro Max");
+        index.onProductChanged(ProductChangedEvent.saved(phone, null));
+        index.onProductChanged(ProductChangedEvent.deleted("PHONE4", phone));
+        index.onProductChanged(ProductChangedEvent.deleted("PHONE3", null));
+        index.onProductChanged(ProductChangedEvent.saved(catalog().get(2), null));
+        index.onProductChanged(ProductChangedEvent.deleted("SHIRT", null));
+
+        await(() -> index.related("SHIRT", 5).isEmpty());
+        assertEquals(Optional.empty(), index.related("PHONE4", 5));
+        assertEquals(List.of("PHONE2", "PHONE3", "LAPTOP"), related("PHONE1", 5));
+    }
+
+    @Test
+    public void testWritesAfterReloadDoNotCancelTheRebuild() {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        index.rebuild(catalog());
+        Product fresh = product("FRESH", "Electronics", "Smartphones", "Apple", 999, "iPhone 16");
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.concat(catalog().stream(), Stream.of(fresh)));
+
+        index.onProductChanged(ProductChangedEvent.reloaded());
+        index.onProductChanged(ProductChangedEvent.saved(product("PHONE4", "Electronics", "Smartphones", "Apple", 1, "x"), null));
+        index.onProductChanged(ProductChangedEvent.deleted("PHONE1", null));
+
+        // The rebuild reads Mongo, which already holds those writes
+        await(() -> index.related("FRESH", 5).isPresent());
+        assertTrue(index.related("PHONE1", 5).isPresent());
+        assertEquals(Optional.empty(), index.related("PHONE4", 5));
+    }
+
+    @Test
+    public void testIgnoresWritesBeforeTheFirstBuild() {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        index.onProductChanged(ProductChangedEvent.reloaded());
+        assertFalse(index.isLoaded());
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(Product.class));
+    }
+
+    @Test
+    public void testWritesDuringTheFirstBuildAreAppliedAfterIt() throws Exception {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        index.scheduleRebuild(blocking(catalog(), started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        index.onProductChanged(ProductChangedEvent.saved(product("PHONE4", "Electronics", "Smartphones", "Apple", 999, "iPhone 15 Pro Max"), null));
+        index.onProductChanged(ProductChangedEvent.deleted("PHONE3", null));
+        release.countDown();
+
+        await(() -> index.related("PHONE4", 5).isPresent());
+        assertEquals(Optional.empty(), index.related("PHONE3", 5));
+        assertFalse(related("PHONE1", 5).contains("PHONE3"));
+    }
+
+    @Test
+    public void testReloadDuringTheFirstBuildRebuildsAfterIt() throws Exception {
+        index = new RelatedProductsIndex(mongoTemplate, 3, 10);
+        Product fresh = product("FRESH", "Electronics", "Smartphones", "Apple", 999, "iPhone 16");
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.concat(catalog().stream(), Stream.of(fresh)));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // A stale snapshot, corrected by the reconcile's RELOADED while it is still being scored
+        index.scheduleRebuild(blocking(catalog(), started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        index.onProductChanged(ProductChangedEvent.reloaded());
+        release.countDown();
+
+        await(() -> index.related("FRESH", 5).isPresent());
+        assertTrue(related("PHONE1", 5).contains("FRESH"));
+    }
+
+    // Hands out the first product, then waits for "release" before the rest
+    private static Iterable<Product> blocking(List<Product> products, CountDownLatch started, CountDownLatch release) {
+        return () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < products.size();
+            }
+
+            @Override
+            public Product next() {
+                if (next == 1) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return products.get(next++);
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.search;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductSearchIndex(null);
+        index.rebuild(List.of(
+                product("ELEC001", "iPhone 15 Pro", "Apple", "Latest iPhone with titanium design and A17 Pro chip.",
+                        Map.of("Processor", "A17 Pro")),
+                product("ELEC002", "Samsung Galaxy S24", "Samsung", "Premium Android flagship with AI features.",
+                        Map.of("Processor", "Snapdragon 8 Gen 3")),
+                product("ELEC003", "iPhone 15 Case", "Spigen", "Protective case made for the iPhone 15.",
+                        Map.of("Material", "Polycarbonate")),
+                product("ELEC004", "MagSafe Charger", "Apple", "Fast wireless charging for any iPhone.",
+                        Map.of("Output", "15W")),
+                product("FASH001", "Café Linen Shirt", "Uniqlo", "Breathable linen shirt for summer.",
+                        Map.of("Material", "Linen"))
+        ));
+    }
+
+    @Test
+    public void testNameMatchesRankAboveDescriptionMatches() {
+        List<String> results = search("iphone", 10);
+
+        assertEquals(3, results.size());
+        assertTrue(results.subList(0, 2).containsAll(List.of("ELEC001", "ELEC003")));
+        assertEquals("ELEC004", results.get(2));
+    }
+
+    @Test
+    public void testAllTermsPreferredOverAnyTerm() {
+        assertEquals(List.of("ELEC001"), search("iphone titanium", 10));
+        // No document has both terms, so it falls back to matching either
+        assertEquals(2, search("snapdragon polycarbonate", 10).size());
+    }
+
+    @Test
+    public void testSearchesBrandSpecsAndFoldsAccents() {
+        assertEquals(List.of("ELEC002"), search("SAMSUNG", 10));
+        assertEquals(List.of("ELEC002"), search("snapdragon", 10));
+        assertEquals(List.of("FASH001"), search("cafe", 10));
+        assertTrue(search("the", 10).isEmpty());
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAreVisible() {
+        index.index(product("ELEC002", "Samsung Galaxy S25", "Samsung", "Titanium frame.", Map.of()));
+        index.remove("ELEC003");
+
+        assertEquals(List.of("ELEC001", "ELEC004"), search("iphone", 10));
+        assertEquals(List.of("ELEC002"), search("s25", 10));
+        assertTrue(search("s24", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testCompactionKeepsResults() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            products.add(product("P" + i, "Widget " + i, "Acme", "Generic widget", Map.of()));
+        }
+        index.rebuild(products);
+        for (int i = 0; i < 2000; i++) {
+            index.remove("P" + i);
+        }
+
+        assertEquals(1000, index.size());
+        assertEquals(List.of("P2500"), search("widget 2500", 1));
+    }
+
+    @Test
+    public void testReportsEveryMatchBeyondTheLimit() {
+        ProductSearchIndex.Hits hits = index.search("iphone", 2);
+        assertEquals(List.of("ELEC001", "ELEC003"), hits.ids().stream().sorted().toList());
+        assertEquals(3, hits.total());
+        assertTrue(hits.isTruncated());
+        assertFalse(index.search("iphone titanium", 10).isTruncated());
+    }
+
+    @Test
+    public void testWritesDuringARebuildSurviveTheSwap() {
+        List<Product> catalog = List.of(
+                product("ELEC001", "iPhone 15 Pro", "Apple", "Titanium design.", Map.of()),
+                product("ELEC002", "Samsung Galaxy S24", "Samsung", "Android flagship.", Map.of()));
+        // The writes land after the rebuild has read both products, so only the replay carries them
+        Iterable<Product> racing = () -> catalog.stream().peek(product -> {
+            if (product.getId().equals("ELEC002")) {
+                index.onProductChanged(ProductChangedEvent.saved(
+                        product("ELEC001", "iPhone 16 Pro", "Apple", "Titanium design.", Map.of()), null));
+                index.onProductChanged(ProductChangedEvent.deleted("ELEC002", null));
+            }
+        }).iterator();
+
+        index.rebuild(racing);
+
+        assertEquals(List.of("ELEC001"), search("iphone 16", 10));
+        assertTrue(search("samsung", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private List<String> search(String text, int limit) {
+        return index.search(text, limit).ids();
+    }
+
+    private static Product product(String id, String name, String brand, String description, Map<String, String> specs) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .brand(brand)
+                .description(description)
+                .specs(specs)
+                .build();
+    }
+}
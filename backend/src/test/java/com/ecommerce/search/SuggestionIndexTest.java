@@ -0,0 +1,148 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.SearchSuggestion;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SuggestionIndex(null, 10);
+        index.rebuild(List.of(
+                product("ELEC001", "iPhone 15 Pro", "Apple", "Smartphones", 4.8, 1200),
+                product("ELEC002", "iPhone 15", "Apple", "Smartphones", 4.6, 300),
+                product("ELEC003", "iPad Pro 11", "Apple", "Tablets", 4.7, 800),
+                product("ELEC004", "Galaxy S24", "Samsung", "Smartphones", 4.5, 900)
+        ));
+    }
+
+    @Test
+    public void testRanksPrefixMatchesByPopularity() {
+        assertEquals(List.of("iPhone 15 Pro", "iPad Pro 11", "iPhone 15"), texts(index.suggest("ip", 10)));
+        assertEquals(List.of("iPhone 15 Pro"), texts(index.suggest("IP", 1)));
+        assertTrue(index.suggest("xbox", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testMatchesLaterWordsOfTheText() {
+        assertEquals(List.of("iPhone 15 Pro", "iPad Pro 11"), texts(index.suggest("pro", 10)));
+        // A trailing space only continues with whole words
+        assertEquals(List.of("iPhone 15 Pro", "iPhone 15"), texts(index.suggest("iphone ", 10)));
+    }
+
+    @Test
+    public void testBrandsAndCategoriesAggregateTheirProducts() {
+        SearchSuggestion apple = index.suggest("app", 10).get(0);
+        assertEquals("Apple", apple.getText());
+        assertEquals("brand", apple.getType());
+        assertEquals(3, apple.getCount());
+
+        List<SearchSuggestion> smart = index.suggest("smart", 10);
+        assertEquals("category", smart.get(0).getType());
+        assertEquals(3, smart.get(0).getCount());
+    }
+
+    @Test
+    public void testWritesReRankTheChangedPaths() {
+        index.update(product("ELEC002", "iPhone 15", "Apple", "Smartphones", 5.0, 50_000));
+        assertEquals("iPhone 15", index.suggest("ip", 10).get(0).getText());
+
+        index.remove("ELEC003");
+        assertEquals(List.of("iPhone 15 Pro"), texts(index.suggest("pro", 10)));
+        assertEquals(2, index.suggest("apple", 10).get(0).getCount());
+
+        index.remove("ELEC004");
+        assertTrue(index.suggest("sam", 10).isEmpty());
+    }
+
+    @Test
+    public void testLookupsAreAnsweredFromTheOldTrieDuringARebuild() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Iterable<Product> slow = () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < 2;
+            }
+
+            @Override
+            public Product next() {
+                if (next == 1) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return product("NEW" + next++, "Xbox Series " + next, "Microsoft", "Consoles", 4.0, 10);
+            }
+        };
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> index.rebuild(slow));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // The rebuild is still reading products, yet the lookup does not wait for it
+        CompletableFuture<List<SearchSuggestion>> lookup = CompletableFuture.supplyAsync(() -> index.suggest("ip", 10));
+        assertEquals(3, lookup.get(5, TimeUnit.SECONDS).size());
+        assertFalse(rebuild.isDone());
+
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        assertTrue(index.suggest("ip", 10).isEmpty());
+        assertEquals(List.of("Xbox Series 1", "Xbox Series 2"), texts(index.suggest("xbox", 10)));
+    }
+
+    @Test
+    public void testWritesDuringARebuildSurviveTheSwap() {
+        List<Product> catalog = List.of(
+                product("ELEC001", "iPhone 15 Pro", "Apple", "Smartphones", 4.8, 1200),
+                product("ELEC004", "Galaxy S24", "Samsung", "Smartphones", 4.5, 900));
+        // The writes land after the rebuild has read both products, so only the replay carries them
+        Iterable<Product> racing = () -> catalog.stream().peek(product -> {
+            if (product.getId().equals("ELEC004")) {
+                index.onProductChanged(ProductChangedEvent.saved(
+                        product("ELEC001", "iPhone 16 Pro", "Apple", "Smartphones", 4.9, 1500), null));
+                index.onProductChanged(ProductChangedEvent.deleted("ELEC004", null));
+            }
+        }).iterator();
+
+        index.rebuild(racing);
+
+        assertEquals(List.of("iPhone 16 Pro"), texts(index.suggest("iphone", 10)));
+        assertTrue(index.suggest("galaxy", 10).isEmpty());
+        assertEquals(1, index.suggest("smart", 10).get(0).getCount());
+    }
+
+    private static List<String> texts(List<SearchSuggestion> suggestions) {
+        return suggestions.stream().map(SearchSuggestion::getText).toList();
+    }
+
+    private static Product product(String id, String name, String brand, String subcategory, double rating, int reviews) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setSubcategory(subcategory);
+        product.setRating(rating);
+        product.setReviewCount(reviews);
+        return product;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductCursorTest {
+
+    @Test
+    public void testKeysetCursorKeepsKeyTypesAcrossTheRoundTrip() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("price", 10.0);
+        keys.put("reviewCount", 5L);
+        keys.put("_id", "ELEC001");
+        Sort sort = Sort.by(Sort.Direction.DESC, "price");
+
+        ProductCursor decoded = ProductCursor.decode(ProductCursor.keyset(sort, keys).encode());
+
+        assertFalse(decoded.isRanked());
+        assertTrue(decoded.matches(sort));
+        assertFalse(decoded.matches(Sort.by(Sort.Direction.ASC, "price")));
+        // 10.0 must not come back as the integer 10, or the seek compares against the wrong type
+        assertEquals(Double.class, decoded.getKeys().get("price").getClass());
+        assertEquals(Long.class, decoded.getKeys().get("reviewCount").getClass());
+        assertEquals(keys, decoded.getKeys());
+    }
+
+    @Test
+    public void testRankedCursorCarriesItsOffset() {
+        ProductCursor decoded = ProductCursor.decode(ProductCursor.ranked(24).encode());
+
+        assertTrue(decoded.isRanked());
+        assertEquals(24, decoded.getOffset());
+        assertTrue(decoded.matches(Sort.unsorted()));
+    }
+
+    @Test
+    public void testRejectsMalformedAndForeignTokens() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("{\"v\": 2, \"s\": \"relevance\", \"o\": 0}")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("{\"v\": 1, \"s\": \"relevance\", \"o\": -1}")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("{\"v\": 1, \"o\": 0}")));
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes());
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.importer.ProductJsonReader;
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductExporterTest {
+
+    @Test
+    public void writesOneDocumentPerLineThatTheImporterReadsBack() throws IOException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        Document first = new Document("_id", "ELEC001").append("name", "iPhone 15 Pro").append("price", 999.99)
+                .append("createdAt", 1754763566245L).append("specs", new Document("Storage", "256GB"));
+        Document second = new Document("_id", "SPORT001").append("name", "Dumbbells\nset").append("price", 49.5);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("products"))).thenReturn(Stream.of(first, second));
+
+        ProductExporter exporter = new ProductExporter(mongoTemplate, new ProductQueryBuilder(), 250);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exporter.export(ProductFilter.builder().category("Electronics").build(), out);
+
+        assertEquals(2, written);
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertEquals(2, ndjson.lines().count());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Document.class), eq("products"));
+        assertEquals(new Document("category", "Electronics"), query.getValue().getQueryObject());
+        assertEquals(250, query.getValue().getMeta().getCursorBatchSize());
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        try (ProductJsonReader reader = new ProductJsonReader(new ByteArrayInputStream(out.toByteArray()), converter)) {
+            Product product = reader.next();
+            assertEquals("ELEC001", product.getId());
+            assertEquals(1754763566245L, product.getCreatedAt());
+            assertEquals("256GB", product.getSpecs().get("Storage"));
+            assertEquals("Dumbbells\nset", reader.next().getName());
+            assertFalse(reader.hasNext());
+        }
+    }
+}
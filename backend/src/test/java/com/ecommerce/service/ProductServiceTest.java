@@ -0,0 +1,240 @@
+package com.ecommerce.service;
+
+import com.ecommerce.catalog.CategoryIndex;
+import com.ecommerce.dto.CursorSlice;
+import com.ecommerce.dto.ProductCard;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.ProductSearchIndex;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ProductServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private ProductService productService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        productService = new ProductService(mock(ProductRepository.class), mock(CategoryIndex.class), mongoTemplate,
+                new ProductQueryBuilder(), mock(ProductSearchIndex.class), mock(CacheManager.class), mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(productService, "maxSliceSize", 50);
+    }
+
+    @Test
+    public void testRejectsSliceSizesOutsideTheLimits() {
+        ProductFilter filter = ProductFilter.builder().build();
+        for (int size : new int[]{0, -1, 51}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> productService.findProductsAfter(filter, Sort.by("price"), size, null, Product.class));
+        }
+        // Mongo treats limit(0) as unlimited, so an invalid size must never reach it
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void testSeeksPastTiesOnTheIdTieBreaker() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "price");
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.scroll(queries.capture(), eq(Product.class), anyString()))
+                .thenReturn(window(true, row("B", 10.0), row("A", 10.0)))
+                .thenReturn(window(false, row("C", 5.0)));
+
+        CursorSlice<Product> first = productService.findProductsAfter(ProductFilter.builder().build(), sort, 2, null, Product.class);
+        // Equal prices are ordered by _id in the same direction, so the seek predicate is strict
+        Query firstQuery = queries.getAllValues().get(0);
+        assertEquals(new Document("price", -1).append("_id", -1), firstQuery.getSortObject());
+        assertEquals(2, firstQuery.getLimit());
+        assertTrue(first.isHasNext());
+
+        // The cursor resumes after the last row's (price, _id), not after its price alone
+        ProductCursor cursor = ProductCursor.decode(first.getNextCursor());
+        assertEquals(Map.of("price", 10.0, "_id", "A"), cursor.getKeys());
+
+        CursorSlice<Product> second = productService.findProductsAfter(ProductFilter.builder().build(), sort, 2, first.getNextCursor(), Product.class);
+        assertEquals(Map.of("price", 10.0, "_id", "A"), queries.getAllValues().get(1).getKeyset().getKeys());
+        assertFalse(second.isHasNext());
+        assertEquals(null, second.getNextCursor());
+
+        // A cursor from one ordering is refused under another
+        assertThrows(IllegalArgumentException.class, () -> productService.findProductsAfter(ProductFilter.builder().build(),
+                Sort.by("name"), 2, first.getNextCursor(), Product.class));
+    }
+
+    @Test
+    public void testCardSlicesSeekOnKeysTheCardDoesNotCarry() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        Product newest = row("B", 10.0);
+        newest.setName("iPhone 15 Pro");
+        newest.setImages(List.of("/products/1.jpg", "/products/2.jpg"));
+        List<Product> content = List.of(newest);
+        when(mongoTemplate.scroll(queries.capture(), eq(Product.class), anyString()))
+                .thenReturn(Window.from(content, i -> ScrollPosition.forward(Map.of("createdAt", 1700L, "_id", "B")), true));
+
+        CursorSlice<ProductCard> slice = productService.findProductsAfter(ProductFilter.builder().build(), sort, 1, null, ProductCard.class);
+
+        // Scrolled as products, so Spring Data can read createdAt off the row, then served as cards
+        assertEquals(List.of(ProductCard.of(newest)), slice.getContent());
+        assertEquals(List.of("/products/1.jpg"), slice.getContent().get(0).getImages());
+        assertEquals(Map.of("createdAt", 1700L, "_id", "B"), ProductCursor.decode(slice.getNextCursor()).getKeys());
+        Document fields = queries.getValue().getFieldsObject();
+        assertEquals(1, fields.get("createdAt"));
+        assertFalse(fields.containsKey("description"));
+        verify(mongoTemplate, never()).scroll(any(Query.class), eq(ProductCard.class), anyString());
+    }
+
+    @Test
+    public void testFacetsBucketPricesAndRatingsByTheirBoundaries() {
+        ArgumentCaptor<Aggregation> aggregations = ArgumentCaptor.forClass(Aggregation.class);
+        // The last product has no reviews, so its primitive rating is stored as 0.0
+        List<Double> ratings = List.of(4.6, 4.8, 4.5, 4.9, 0.0);
+        when(mongoTemplate.aggregate(aggregations.capture(), eq("products"), eq(Document.class))).thenAnswer(invocation -> {
+            Document facet = aggregations.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(1).get("$facet", Document.class);
+            Document result = new Document("brands", List.of(count("Apple", 3), count(null, 1)))
+                    .append("priceRanges", List.of(count(25.0, 2), count(2500.0, 1)))
+                    .append("ratings", runRatingFacet(facet.getList("ratings", Document.class), ratings))
+                    .append("subcategories", List.of(count("Smartphones", 3)));
+            return new AggregationResults<>(List.of(result), new Document());
+        });
+
+        ProductFacets facets = productService.findFacets(ProductFilter.builder().category("Electronics").build());
+
+        assertEquals(List.of(new ProductFacets.ValueCount("Apple", 3)), facets.getBrands());
+        // Each bucket runs up to the next boundary; the default bucket above the last is open-ended
+        assertEquals(List.of(new ProductFacets.RangeCount(25.0, 50.0, 2), new ProductFacets.RangeCount(2500.0, null, 1)),
+                facets.getPriceRanges());
+        // The unrated product is left out rather than counted in the [0, 1) bucket
+        assertEquals(List.of(new ProductFacets.RangeCount(4.5, 5.01, 4)), facets.getRatings());
+        assertEquals(List.of(new ProductFacets.ValueCount("Smartphones", 3)), facets.getSubcategories());
+
+        // The boundaries reach Mongo as one list of numbers, not as a single array value
+        Document facet = aggregations.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(1).get("$facet", Document.class);
+        Document priceBucket = facet.getList("priceRanges", Document.class).get(0).get("$bucket", Document.class);
+        assertEquals(List.of(0.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 2500.0), priceBucket.get("boundaries"));
+        assertEquals(7, facet.getList("ratings", Document.class).get(1).get("$bucket", Document.class).getList("boundaries", Object.class).size());
+    }
+
+    // Runs the rating facet's $match on "rating" and its $bucket over plain rating values, the way Mongo would
+    private static List<Document> runRatingFacet(List<Document> stages, List<Double> ratings) {
+        Map<Double, Integer> buckets = new TreeMap<>();
+        for (double rating : ratings) {
+            boolean kept = true;
+            for (Document stage : stages) {
+                Document match = stage.get("$match", Document.class);
+                if (match != null) {
+                    kept &= rating > ((Number) match.get("rating", Document.class).get("$gt")).doubleValue();
+                }
+                Document bucket = stage.get("$bucket", Document.class);
+                if (bucket != null && kept) {
+                    List<Number> boundaries = bucket.getList("boundaries", Number.class);
+                    double label = ((Number) bucket.get("default")).doubleValue();
+                    for (int i = 0; i < boundaries.size() - 1; i++) {
+                        if (rating >= boundaries.get(i).doubleValue() && rating < boundaries.get(i + 1).doubleValue()) {
+                            label = boundaries.get(i).doubleValue();
+                        }
+                    }
+                    buckets.merge(label, 1, Integer::sum);
+                }
+            }
+        }
+        return buckets.entrySet().stream().map(entry -> count(entry.getKey(), entry.getValue())).toList();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFacetsOfASearchWithoutMatchesSkipMongo() {
+        ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+        when(searchIndex.isLoaded()).thenReturn(true);
+        when(searchIndex.search(eq("nothing"), anyInt())).thenReturn(new ProductSearchIndex.Hits(List.of(), 0));
+        ProductService searching = new ProductService(mock(ProductRepository.class), mock(CategoryIndex.class), mongoTemplate,
+                new ProductQueryBuilder(), searchIndex, mock(CacheManager.class), mock(ObjectProvider.class));
+
+        ProductFacets facets = searching.findFacets(ProductFilter.builder().search("nothing").build());
+
+        assertTrue(facets.getBrands().isEmpty() && facets.getPriceRanges().isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void testCategoryListingsShareTheListingCache() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class), anyString())).thenReturn(List.of(row("A", 1.0)));
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(CachingConfig.class);
+            context.registerBean(ProductService.class, () -> productService);
+            context.refresh();
+            ProductService proxied = context.getBean(ProductService.class);
+
+            PageRequest page = PageRequest.of(0, 12);
+            proxied.findByCategory("Electronics", page, Product.class);
+            proxied.findByCategory("Electronics", page, Product.class);
+            proxied.findProducts(ProductFilter.builder().category("Electronics").build(), page, Product.class);
+            verify(mongoTemplate, times(1)).find(any(Query.class), eq(Product.class), anyString());
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+
+    private static Document count(Object value, long count) {
+        return new Document("_id", value).append("count", count);
+    }
+
+    private static Product row(String id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        return product;
+    }
+
+    private static Window<Product> window(boolean hasNext, Product... rows) {
+        List<Product> content = List.of(rows);
+        return Window.from(content, i -> ScrollPosition.forward(Map.of("price", content.get(i).getPrice(), "_id", content.get(i).getId())), hasNext);
+    }
+}